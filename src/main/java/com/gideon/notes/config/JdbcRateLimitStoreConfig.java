@@ -0,0 +1,38 @@
+package com.gideon.notes.config;
+
+
+import com.gideon.notes.repository.JdbcBucketProxyManager;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+@Slf4j
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "rate-limit.store", havingValue = "jdbc")
+public class JdbcRateLimitStoreConfig {
+
+    private final JdbcBucketProxyManager proxyManager;
+
+    public JdbcRateLimitStoreConfig(JdbcTemplate jdbcTemplate) {
+        this.proxyManager = new JdbcBucketProxyManager(jdbcTemplate);
+    }
+
+    @Bean
+    public ProxyManager<String> rateLimitProxyManager() {
+        return proxyManager;
+    }
+
+    @Scheduled(fixedDelayString = "${rate-limit.idle-timeout:10m}")
+    public void removeExpiredBuckets() {
+        int removed = proxyManager.removeExpired();
+        if (removed > 0) {
+            log.debug("Removed {} refilled rate limit buckets", removed);
+        }
+    }
+}
@@ -15,4 +15,8 @@ public class JwtProperties {
     private String secretKey;
     private long tokenExp;
     private long refreshTokenExp;
+    // Builds the principal from token claims alone. Saves the user lookup per request, but a
+    // deleted user or a role change only takes effect once each issued token expires.
+    private boolean statelessPrincipal = false;
+    private long verifiedTokenCacheSize = 10_000;
 }
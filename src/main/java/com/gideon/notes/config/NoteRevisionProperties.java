@@ -0,0 +1,18 @@
+package com.gideon.notes.config;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ConfigurationProperties("note-revisions")
+public class NoteRevisionProperties {
+    // A full copy is stored at least every this many versions; reading a revision replays
+    // at most this many deltas
+    private int snapshotInterval = 20;
+}
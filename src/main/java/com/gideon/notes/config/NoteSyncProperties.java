@@ -0,0 +1,22 @@
+package com.gideon.notes.config;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ConfigurationProperties("note-sync")
+public class NoteSyncProperties {
+    // Changes younger than this are held back. A change's updated_at can precede its sequence
+    // value by up to one transaction, and a lower value can commit up to one transaction later,
+    // so this must exceed twice the longest note-writing transaction
+    private Duration settleTime = Duration.ofSeconds(5);
+    private int maxChanges = 1000;
+}
@@ -0,0 +1,20 @@
+package com.gideon.notes.config;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ConfigurationProperties("password-hashing")
+public class PasswordHashingProperties {
+    private int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private int queueCapacity = 32;
+    private Duration timeout = Duration.ofSeconds(5);
+}
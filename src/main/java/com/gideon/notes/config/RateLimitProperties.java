@@ -0,0 +1,71 @@
+package com.gideon.notes.config;
+
+
+import com.gideon.notes.service.RateLimitService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ConfigurationProperties("rate-limit")
+public class RateLimitProperties {
+    private Limit auth = new Limit(5, 5, Duration.ofMinutes(1));
+    private Limit api = new Limit(100, 100, Duration.ofMinutes(1));
+    private Limit notesCreate = new Limit(20, 20, Duration.ofMinutes(1));
+    private Limit notesUpdate = new Limit(30, 30, Duration.ofMinutes(1));
+    private long maxClients = 100_000;
+    private Duration idleTimeout = Duration.ofMinutes(10);
+    private Store store = Store.MEMORY;
+    private Sync sync = new Sync();
+
+    public Limit limitFor(RateLimitService.RateLimitType type) {
+        return switch (type) {
+            case AUTH -> auth;
+            case API -> api;
+            case NOTES_CREATE -> notesCreate;
+            case NOTES_UPDATE -> notesUpdate;
+        };
+    }
+
+    public enum Store {
+        // Buckets live in this instance only; each replica enforces the full limit on its own
+        MEMORY,
+        // Buckets are shared by all replicas through the rate_limit_buckets table
+        JDBC
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Sync {
+        private SyncMode mode = SyncMode.BATCHING;
+        // DELAYING only: tokens an instance may consume locally before writing them back
+        private long maxUnsynchronizedTokens = 5;
+        private Duration maxUnsynchronizedTimeout = Duration.ofSeconds(1);
+    }
+
+    public enum SyncMode {
+        // Every consumption is one compare-and-swap against the store
+        NONE,
+        // Concurrent consumptions on the same bucket are merged into one round trip
+        BATCHING,
+        // Consumptions are applied locally and synced once either threshold is reached; a
+        // limit can be exceeded by at most maxUnsynchronizedTokens per replica
+        DELAYING
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Limit {
+        private long capacity;
+        private long refill;
+        private Duration duration;
+    }
+}
@@ -0,0 +1,58 @@
+package com.gideon.notes.config;
+
+
+import com.gideon.notes.service.notes.NoteTrashPurge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the trash purge on a thread of its own rather than on the shared {@code @Scheduled}
+ * thread: a run pauses between batches and would hold up every other scheduled task
+ * (such as the rate limit bucket cleanup) until it finishes.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "trash-purge.enabled", havingValue = "true", matchIfMissing = true)
+public class TrashPurgeConfig implements AutoCloseable {
+
+    private final NoteTrashPurge trashPurge;
+    private final TrashPurgeProperties properties;
+    private final ScheduledExecutorService scheduler;
+
+    public TrashPurgeConfig(NoteTrashPurge trashPurge, TrashPurgeProperties properties) {
+        this.trashPurge = trashPurge;
+        this.properties = properties;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("trash-purge-");
+        threadFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void schedulePurge() {
+        long interval = properties.getInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::purgeTrash, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    // A task that throws is never run again, so a failed run is only logged
+    private void purgeTrash() {
+        try {
+            trashPurge.purge();
+        } catch (RuntimeException e) {
+            log.error("Trash purge failed", e);
+        }
+    }
+
+    // Interrupts a running purge, which stops after its current batch
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
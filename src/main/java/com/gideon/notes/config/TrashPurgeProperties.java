@@ -0,0 +1,24 @@
+package com.gideon.notes.config;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ConfigurationProperties("trash-purge")
+public class TrashPurgeProperties {
+    private boolean enabled = true;
+    // Deleted notes stay restorable for this long
+    private Duration retention = Duration.ofDays(30);
+    private Duration interval = Duration.ofHours(1);
+    private int batchSize = 500;
+    // Pause between batches so a large backlog never holds the database for long
+    private Duration batchPause = Duration.ofMillis(200);
+}
@@ -0,0 +1,19 @@
+package com.gideon.notes.config;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ConfigurationProperties("user-cache")
+public class UserCacheProperties {
+    private long maximumSize = 10_000;
+    private Duration ttl = Duration.ofMinutes(5);
+}
@@ -1,6 +1,8 @@
 package com.gideon.notes.controller;
 
 import com.gideon.notes.dto.NoteDto;
+import com.gideon.notes.security.AuthUser;
+import com.gideon.notes.service.notes.NoteImporter;
 import com.gideon.notes.service.notes.NoteServiceInt;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -10,13 +12,24 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/notes")
@@ -25,7 +38,10 @@ import org.springframework.web.bind.annotation.*;
 @SecurityRequirement(name = "bearerAuth")
 public class NotesController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final NoteServiceInt noteService;
+    private final NoteImporter noteImporter;
 
     @PostMapping
     @Operation(
@@ -66,55 +82,326 @@ public class NotesController {
     )
     public ResponseEntity<NoteDto.NoteResponse> createNote(
             @Valid @RequestBody NoteDto.NoteRequest request,
-            Authentication authentication) {
-        NoteDto.NoteResponse response = noteService.createNote(authentication.getName(), request);
+            @AuthenticationPrincipal AuthUser user) {
+        NoteDto.NoteResponse response = noteService.createNote(user.getId(), request);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
 
 
+    @PostMapping("/batch")
+    @Operation(
+            summary = "Create several notes",
+            description = "Create up to " + NoteDto.MAX_BATCH_SIZE + " notes for the authenticated user in one request. " +
+                    "Either all notes are created or, if any is invalid, none.",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "201",
+                            description = "Notes created successfully",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = NoteDto.BatchNoteResponse.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Validation error",
+                            content = @Content(schema = @Schema(implementation = ProblemDetail.class))
+                    ),
+                    @ApiResponse(
+                            responseCode = "401",
+                            description = "Unauthorized",
+                            content = @Content(schema = @Schema(implementation = ProblemDetail.class))
+                    )
+            }
+    )
+    public ResponseEntity<NoteDto.BatchNoteResponse> createNotes(
+            @Valid @RequestBody NoteDto.BatchNoteRequest request,
+            @AuthenticationPrincipal AuthUser user) {
+        NoteDto.BatchNoteResponse response = noteService.createNotes(user.getId(), request.getNotes());
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+
+
+    @PostMapping(value = "/import", consumes = {NDJSON, MediaType.APPLICATION_JSON_VALUE})
+    @Operation(
+            summary = "Import notes",
+            description = "Create notes from an upload of any size, either newline-delimited JSON (one note per line) " +
+                    "or a JSON array of notes. Records are validated one by one; invalid records are skipped and " +
+                    "reported without aborting the import.",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Import finished",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = NoteDto.ImportResponse.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "The upload is not a JSON array",
+                            content = @Content(schema = @Schema(implementation = ProblemDetail.class))
+                    )
+            }
+    )
+    public ResponseEntity<NoteDto.ImportResponse> importNotes(
+            @AuthenticationPrincipal AuthUser user,
+            HttpServletRequest request) throws IOException {
+        NoteDto.ImportResponse response = MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(request.getContentType()))
+                ? noteImporter.importJsonArray(user.getId(), request.getInputStream())
+                : noteImporter.importNdjson(user.getId(), request.getInputStream());
+        return ResponseEntity.ok(response);
+    }
+
+
+
     @GetMapping
     @Operation(
             summary = "Get all notes",
-            description = "Retrieve paginated list of notes with optional search and tag filtering",
+            description = "Retrieve paginated list of notes with optional search and tag filtering. " +
+                    "With view=summary each note carries a truncated content snippet instead of the full content. " +
+                    "Send the returned weak ETag in If-None-Match to revalidate.",
             responses = {
                     @ApiResponse(
                             responseCode = "200",
                             description = "Note retrieved successfully",
                             content = @Content(
                                     mediaType = "application/json",
-                                    schema = @Schema(implementation = NoteDto.PagedNotesResponse.class)
+                                    schema = @Schema(oneOf = {
+                                            NoteDto.PagedNotesResponse.class,
+                                            NoteDto.PagedNoteSummariesResponse.class
+                                    })
                             )
+                    ),
+                    @ApiResponse(
+                            responseCode = "304",
+                            description = "Unchanged since the ETag sent in If-None-Match"
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid query parameters",
+                            content = @Content(schema = @Schema(implementation = ProblemDetail.class))
                     )
             }
     )
-    public ResponseEntity<NoteDto.PagedNotesResponse> getNotes(
-            @Parameter(description = "Search query for title/content")
+    public ResponseEntity<?> getNotes(
+            @Parameter(description = "Full-text search over title/content, ranked by relevance (earlier words match whole words, the last word also matches as a prefix)")
             @RequestParam(required = false) String search,
 
             @Parameter(description = "Filter by tag (comma-separated for multiple)")
             @RequestParam(required = false) String tag,
 
+            @Parameter(description = "How multiple tags are combined: all (default) or any")
+            @RequestParam(required = false) String tagMode,
+
+            @Parameter(description = "Exclude notes having any of these tags (comma-separated)")
+            @RequestParam(required = false) String excludeTag,
+
             @Parameter(description = "Page number (0-indexed)")
             @RequestParam(defaultValue = "0") int page,
 
             @Parameter(description = "Page size")
             @RequestParam(defaultValue = "10") int size,
 
-            @Parameter(description = "Sort by field (default: updatedAt)")
+            @Parameter(description = "Sort by field: updatedAt (default), createdAt or title")
             @RequestParam(required = false, defaultValue = "updatedAt") String sortBy,
-            Authentication authentication) {
-        NoteDto.PagedNotesResponse response = noteService.getNotes(
-                authentication.getName(), search, tag, page, size, sortBy);
+
+            @Parameter(description = "Response shape: full (default) or summary")
+            @RequestParam(defaultValue = "full") String view,
+            @AuthenticationPrincipal AuthUser user,
+            WebRequest webRequest) {
+        if (webRequest.checkNotModified(listETag(user.getId(), search, tag, tagMode, excludeTag, page, size, sortBy, view))) {
+            return null;
+        }
+
+        switch (view.trim().toLowerCase()) {
+            case "full" -> {
+                return ResponseEntity.ok(noteService.getNotes(
+                        user.getId(), search, tag, tagMode, excludeTag, page, size, sortBy));
+            }
+            case "summary" -> {
+                return ResponseEntity.ok(noteService.getNoteSummaries(
+                        user.getId(), search, tag, tagMode, excludeTag, page, size, sortBy));
+            }
+            default -> throw new IllegalArgumentException("view must be one of: full, summary");
+        }
+    }
+
+
+
+    @GetMapping("/trash")
+    @Operation(
+            summary = "Get deleted notes",
+            description = "Paginated list of soft-deleted notes, most recently deleted first. " +
+                    "Deleted notes appear nowhere else; restore one to bring it back.",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Deleted notes retrieved successfully",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = NoteDto.PagedNotesResponse.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "304",
+                            description = "Unchanged since the ETag sent in If-None-Match"
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid query parameters",
+                            content = @Content(schema = @Schema(implementation = ProblemDetail.class))
+                    )
+            }
+    )
+    public ResponseEntity<NoteDto.PagedNotesResponse> getTrash(
+            @Parameter(description = "Page number (0-indexed)")
+            @RequestParam(defaultValue = "0") int page,
+
+            @Parameter(description = "Page size")
+            @RequestParam(defaultValue = "10") int size,
+            @AuthenticationPrincipal AuthUser user,
+            WebRequest webRequest) {
+        if (webRequest.checkNotModified(listETag(user.getId(), "trash", page, size))) {
+            return null;
+        }
+
+        return ResponseEntity.ok(noteService.getTrash(user.getId(), page, size));
+    }
+
+
+
+    @GetMapping("/scroll")
+    @Operation(
+            summary = "Scroll through notes",
+            description = "Cursor-paginated list of notes ordered by last update (newest first). " +
+                    "Pass the returned nextCursor as 'after' to fetch the following slice. " +
+                    "Unlike the paged listing this never counts the total number of notes.",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Notes retrieved successfully",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = NoteDto.CursorNotesResponse.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "304",
+                            description = "Unchanged since the ETag sent in If-None-Match"
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid cursor",
+                            content = @Content(schema = @Schema(implementation = ProblemDetail.class))
+                    )
+            }
+    )
+    public ResponseEntity<NoteDto.CursorNotesResponse> scrollNotes(
+            @Parameter(description = "Cursor returned by the previous slice (omit for the first slice)")
+            @RequestParam(required = false) String after,
+
+            @Parameter(description = "Slice size")
+            @RequestParam(defaultValue = "20") int size,
+
+            @Parameter(description = "Filter by tag (comma-separated for multiple)")
+            @RequestParam(required = false) String tag,
+
+            @Parameter(description = "How multiple tags are combined: all (default) or any")
+            @RequestParam(required = false) String tagMode,
+
+            @Parameter(description = "Exclude notes having any of these tags (comma-separated)")
+            @RequestParam(required = false) String excludeTag,
+            @AuthenticationPrincipal AuthUser user,
+            WebRequest webRequest) {
+        if (webRequest.checkNotModified(listETag(user.getId(), "scroll", after, size, tag, tagMode, excludeTag))) {
+            return null;
+        }
+
+        NoteDto.CursorNotesResponse response = noteService.scrollNotes(
+                user.getId(), after, size, tag, tagMode, excludeTag);
         return ResponseEntity.ok(response);
     }
 
 
 
+    @GetMapping("/changes")
+    @Operation(
+            summary = "Get changes since a token",
+            description = "Notes created, updated, soft-deleted or restored after the given change token, oldest " +
+                    "change first, each in its latest state. Start without a token, then pass the returned " +
+                    "nextToken; repeat right away while hasMore is true. Changes are held back for a few seconds " +
+                    "after they are written so that no change can be skipped. A token from before notes were " +
+                    "purged from the trash is refused with 410; drop the local copy and start again without a token.",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Changes retrieved successfully",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = NoteDto.ChangesResponse.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid token or limit",
+                            content = @Content(schema = @Schema(implementation = ProblemDetail.class))
+                    ),
+                    @ApiResponse(
+                            responseCode = "410",
+                            description = "Token predates a trash purge; sync again without a token",
+                            content = @Content(schema = @Schema(implementation = ProblemDetail.class))
+                    )
+            }
+    )
+    public ResponseEntity<NoteDto.ChangesResponse> getChanges(
+            @Parameter(description = "nextToken of the previous call (omit to start from the beginning)")
+            @RequestParam(required = false) String since,
+
+            @Parameter(description = "Maximum number of changes to return")
+            @RequestParam(defaultValue = "500") int limit,
+            @AuthenticationPrincipal AuthUser user) {
+        return ResponseEntity.ok(noteService.getChanges(user.getId(), since, limit));
+    }
+
+
+
+    @GetMapping(value = "/export", produces = NDJSON)
+    @Operation(
+            summary = "Export all notes",
+            description = "Stream every note of the authenticated user as newline-delimited JSON, one note per line " +
+                    "in creation order. Output starts immediately and is not paginated.",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Notes streamed",
+                            content = @Content(
+                                    mediaType = NDJSON,
+                                    schema = @Schema(implementation = NoteDto.NoteResponse.class)
+                            )
+                    )
+            }
+    )
+    public void exportNotes(
+            @Parameter(description = "Also export soft-deleted notes")
+            @RequestParam(defaultValue = "false") boolean includeDeleted,
+            @AuthenticationPrincipal AuthUser user,
+            HttpServletResponse response) throws IOException {
+        // Written on the request thread rather than as an async StreamingResponseBody: no async
+        // timeout applies, and with virtual threads enabled a long export costs nothing to block on
+        response.setContentType(NDJSON);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"notes.ndjson\"");
+        noteService.exportNotes(user.getId(), includeDeleted, response.getOutputStream());
+    }
+
+
+
     @GetMapping("/{id}")
     @Operation(
             summary = "Get note by ID",
-            description = "Retrieve a specific note by its ID",
+            description = "Retrieve a specific note by its ID. Send the returned ETag in If-None-Match to revalidate.",
             responses = {
                     @ApiResponse(
                             responseCode = "200",
@@ -124,6 +411,10 @@ public class NotesController {
                                     schema = @Schema(implementation = NoteDto.NoteResponse.class)
                             )
                     ),
+                    @ApiResponse(
+                            responseCode = "304",
+                            description = "Unchanged since the ETag sent in If-None-Match"
+                    ),
                     @ApiResponse(
                             responseCode = "404",
                             description = "Note not found",
@@ -133,8 +424,15 @@ public class NotesController {
     )
     public ResponseEntity<NoteDto.NoteResponse> getNoteById(
             @PathVariable Long id,
-            Authentication authentication) {
-        NoteDto.NoteResponse response = noteService.getNoteById(authentication.getName(), id);
+            @AuthenticationPrincipal AuthUser user,
+            WebRequest webRequest) {
+        // Revalidation reads the version alone, without loading the note
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && webRequest.checkNotModified(String.valueOf(noteService.getNoteVersion(user.getId(), id)))) {
+            return null;
+        }
+
+        NoteDto.NoteResponse response = noteService.getNoteById(user.getId(), id);
         return ResponseEntity.ok()
                 .eTag(String.valueOf(response.getVersion()))
                 .body(response);
@@ -142,6 +440,70 @@ public class NotesController {
 
 
 
+    @GetMapping("/{id}/revisions")
+    @Operation(
+            summary = "List revisions of a note",
+            description = "Every version of a note saved by a create or an edit, newest first, without content. " +
+                    "Fetch a single revision to see its content.",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Revisions retrieved successfully",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = NoteDto.PagedRevisionsResponse.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "Note not found",
+                            content = @Content(schema = @Schema(implementation = ProblemDetail.class))
+                    )
+            }
+    )
+    public ResponseEntity<NoteDto.PagedRevisionsResponse> getRevisions(
+            @PathVariable Long id,
+
+            @Parameter(description = "Page number (0-indexed)")
+            @RequestParam(defaultValue = "0") int page,
+
+            @Parameter(description = "Page size")
+            @RequestParam(defaultValue = "10") int size,
+            @AuthenticationPrincipal AuthUser user) {
+        return ResponseEntity.ok(noteService.getRevisions(user.getId(), id, page, size));
+    }
+
+
+
+    @GetMapping("/{id}/revisions/{version}")
+    @Operation(
+            summary = "Get a revision of a note",
+            description = "The title, content and tags of a note as they were at the given version.",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Revision found",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = NoteDto.NoteRevisionResponse.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "Note or revision not found",
+                            content = @Content(schema = @Schema(implementation = ProblemDetail.class))
+                    )
+            }
+    )
+    public ResponseEntity<NoteDto.NoteRevisionResponse> getRevision(
+            @PathVariable Long id,
+            @PathVariable Long version,
+            @AuthenticationPrincipal AuthUser user) {
+        return ResponseEntity.ok(noteService.getRevision(user.getId(), id, version));
+    }
+
+
+
     @PutMapping("/{id}")
     @Operation(
             summary = "Update a note",
@@ -172,7 +534,7 @@ public class NotesController {
             @Valid @RequestBody NoteDto.NoteRequest request,
             @Parameter(description = "Expected version for optimistic locking")
             @RequestHeader(value = "If-Match", required = false) String ifMatch,
-            Authentication authentication) {
+            @AuthenticationPrincipal AuthUser user) {
 
         Long version = null;
         if (ifMatch != null && !ifMatch.isEmpty()) {
@@ -186,7 +548,7 @@ public class NotesController {
         }
 
         NoteDto.NoteResponse response = noteService.updateNote(
-                authentication.getName(), id, request, version);
+                user.getId(), id, request, version);
         return ResponseEntity.ok()
                 .eTag(String.valueOf(response.getVersion()))
                 .body(response);
@@ -212,8 +574,8 @@ public class NotesController {
     )
     public ResponseEntity<Void> deleteNote(
             @PathVariable Long id,
-            Authentication authentication) {
-        noteService.deleteNote(authentication.getName(), id);
+            @AuthenticationPrincipal AuthUser user) {
+        noteService.deleteNote(user.getId(), id);
         return ResponseEntity.noContent().build();
     }
 
@@ -241,8 +603,109 @@ public class NotesController {
     )
     public ResponseEntity<NoteDto.NoteResponse> restoreNote(
             @PathVariable Long id,
-            Authentication authentication) {
-        NoteDto.NoteResponse response = noteService.restoreNote(authentication.getName(), id);
+            @AuthenticationPrincipal AuthUser user) {
+        NoteDto.NoteResponse response = noteService.restoreNote(user.getId(), id);
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+
+
+
+    @PostMapping("/bulk/delete")
+    @Operation(
+            summary = "Soft delete several notes",
+            description = "Soft delete up to " + NoteDto.MAX_BATCH_SIZE + " notes in one statement. Notes that are missing, " +
+                    "already deleted or not at the expected version are skipped and reported per item.",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Per-note results",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = NoteDto.BulkNotesResponse.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Validation error",
+                            content = @Content(schema = @Schema(implementation = ProblemDetail.class))
+                    )
+            }
+    )
+    public ResponseEntity<NoteDto.BulkNotesResponse> deleteNotes(
+            @Valid @RequestBody NoteDto.BulkNotesRequest request,
+            @AuthenticationPrincipal AuthUser user) {
+        return ResponseEntity.ok(noteService.deleteNotes(user.getId(), request.getItems()));
+    }
+
+
+
+    @PostMapping("/bulk/restore")
+    @Operation(
+            summary = "Restore several deleted notes",
+            description = "Restore up to " + NoteDto.MAX_BATCH_SIZE + " soft-deleted notes in one statement. Notes that are " +
+                    "missing, not deleted or not at the expected version are skipped and reported per item.",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Per-note results",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = NoteDto.BulkNotesResponse.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Validation error",
+                            content = @Content(schema = @Schema(implementation = ProblemDetail.class))
+                    )
+            }
+    )
+    public ResponseEntity<NoteDto.BulkNotesResponse> restoreNotes(
+            @Valid @RequestBody NoteDto.BulkNotesRequest request,
+            @AuthenticationPrincipal AuthUser user) {
+        return ResponseEntity.ok(noteService.restoreNotes(user.getId(), request.getItems()));
+    }
+
+
+
+    @PostMapping("/bulk/tags")
+    @Operation(
+            summary = "Add and remove tags on several notes",
+            description = "Retag up to " + NoteDto.MAX_BATCH_SIZE + " notes in one transaction; removed tags are dropped " +
+                    "before added tags are appended. Deleted notes are reported as not found.",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Per-note results",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = NoteDto.BulkNotesResponse.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Validation error",
+                            content = @Content(schema = @Schema(implementation = ProblemDetail.class))
+                    )
+            }
+    )
+    public ResponseEntity<NoteDto.BulkNotesResponse> retagNotes(
+            @Valid @RequestBody NoteDto.BulkTagsRequest request,
+            @AuthenticationPrincipal AuthUser user) {
+        return ResponseEntity.ok(noteService.retagNotes(
+                user.getId(), request.getItems(), request.getAdd(), request.getRemove()));
+    }
+
+
+
+    /**
+     * Weak validator for a listing: the user's last note change plus every parameter shaping
+     * the listing. Taken before the listing is read, so a change racing the read makes the
+     * next revalidation miss rather than hide the change.
+     */
+    private String listETag(Long userId, Object... parameters) {
+        String listing = Arrays.stream(parameters).map(String::valueOf).collect(Collectors.joining("|"));
+        return "W/\"" + noteService.getLastChange(userId) + "-"
+                + DigestUtils.md5DigestAsHex((userId + "|" + listing).getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
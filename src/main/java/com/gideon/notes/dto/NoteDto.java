@@ -1,8 +1,12 @@
 package com.gideon.notes.dto;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.gideon.notes.enums.BulkItemStatus;
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -14,6 +18,11 @@ import java.util.List;
 
 public class NoteDto {
 
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    // Width of note_tags.tag
+    public static final int MAX_TAG_LENGTH = 255;
+
     @Data
     @Builder
     @NoArgsConstructor
@@ -31,7 +40,7 @@ public class NoteDto {
         private String content;
 
         @Schema(description = "Tags associated with the note", example = "[\"work\", \"important\", \"todo\"]")
-        private List<String> tags;
+        private List<@Size(max = MAX_TAG_LENGTH, message = "Tags must not exceed " + MAX_TAG_LENGTH + " characters") String> tags;
     }
 
     @Data
@@ -91,4 +100,319 @@ public class NoteDto {
         @Schema(description = "Is this the last page", example = "false")
         private boolean last;
     }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "Note summary without the full content")
+    public static class NoteSummary {
+
+        @Schema(description = "Note ID", example = "1")
+        private Long id;
+
+        @Schema(description = "Note title", example = "My Important Note")
+        private String title;
+
+        @Schema(description = "Leading characters of the note content", example = "This is the content of my note.")
+        private String snippet;
+
+        @Schema(description = "Whether the snippet is shorter than the full content", example = "false")
+        private boolean truncated;
+
+        @Schema(description = "Tags", example = "[\"work\", \"important\"]")
+        private List<String> tags;
+
+        @Schema(description = "Version for optimistic locking", example = "0")
+        private Long version;
+
+        @Schema(description = "Creation timestamp", example = "2024-01-15T10:30:00")
+        private LocalDateTime createdAt;
+
+        @Schema(description = "Last update timestamp", example = "2024-01-15T14:20:00")
+        private LocalDateTime updatedAt;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "Paginated response for note summaries")
+    public static class PagedNoteSummariesResponse {
+
+        @Schema(description = "List of note summaries")
+        private List<NoteSummary> notes;
+
+        @Schema(description = "Current page number", example = "0")
+        private int page;
+
+        @Schema(description = "Page size", example = "10")
+        private int size;
+
+        @Schema(description = "Total number of elements", example = "45")
+        private long totalElements;
+
+        @Schema(description = "Total number of pages", example = "5")
+        private int totalPages;
+
+        @Schema(description = "Is this the last page", example = "false")
+        private boolean last;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "Cursor-paginated slice of notes, newest first")
+    public static class CursorNotesResponse {
+
+        @Schema(description = "List of notes")
+        private List<NoteResponse> notes;
+
+        @Schema(description = "Slice size", example = "20")
+        private int size;
+
+        @Schema(description = "Whether more notes follow this slice", example = "true")
+        private boolean hasNext;
+
+        @Schema(description = "Opaque cursor to pass as 'after' for the next slice (null on the last slice)",
+                example = "MjAyNC0wMS0xNVQxNDoyMDowMHw0Mg")
+        private String nextCursor;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "Request to create several notes at once")
+    public static class BatchNoteRequest {
+
+        @NotEmpty(message = "At least one note is required")
+        @Size(max = MAX_BATCH_SIZE, message = "A batch must not exceed " + MAX_BATCH_SIZE + " notes")
+        @Schema(description = "Notes to create, in order")
+        private List<@Valid NoteRequest> notes;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "Notes created by a batch request")
+    public static class BatchNoteResponse {
+
+        @Schema(description = "Created notes, in request order")
+        private List<NoteResponse> notes;
+
+        @Schema(description = "Number of notes created", example = "2")
+        private int created;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "A note targeted by a bulk operation")
+    public static class BulkNoteItem {
+
+        @NotNull(message = "Note id is required")
+        @Schema(description = "Note ID", example = "1")
+        private Long id;
+
+        @Schema(description = "Expected version; the note is skipped with VERSION_CONFLICT if it differs (omit to skip the check)",
+                example = "3")
+        private Long version;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "Request to delete or restore several notes")
+    public static class BulkNotesRequest {
+
+        @NotEmpty(message = "At least one note is required")
+        @Size(max = MAX_BATCH_SIZE, message = "A batch must not exceed " + MAX_BATCH_SIZE + " notes")
+        @Schema(description = "Notes to change")
+        private List<@Valid @NotNull BulkNoteItem> items;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "Request to add and remove tags on several notes")
+    public static class BulkTagsRequest {
+
+        @NotEmpty(message = "At least one note is required")
+        @Size(max = MAX_BATCH_SIZE, message = "A batch must not exceed " + MAX_BATCH_SIZE + " notes")
+        @Schema(description = "Notes to retag")
+        private List<@Valid @NotNull BulkNoteItem> items;
+
+        @Schema(description = "Tags to add", example = "[\"archive\"]")
+        private List<@Size(max = MAX_TAG_LENGTH, message = "Tags must not exceed " + MAX_TAG_LENGTH + " characters") String> add;
+
+        @Schema(description = "Tags to remove", example = "[\"todo\"]")
+        private List<String> remove;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "Outcome of a bulk operation for one note")
+    public static class BulkItemResult {
+
+        @Schema(description = "Note ID", example = "1")
+        private Long id;
+
+        @Schema(description = "UPDATED, NOT_FOUND or VERSION_CONFLICT", example = "UPDATED")
+        private BulkItemStatus status;
+
+        @Schema(description = "Version after the operation, or the current version on a conflict (null if not found)",
+                example = "4")
+        private Long version;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "Per-note outcome of a bulk operation")
+    public static class BulkNotesResponse {
+
+        @Schema(description = "One result per distinct note id, in request order")
+        private List<BulkItemResult> results;
+
+        @Schema(description = "Number of notes changed", example = "2")
+        private int updated;
+
+        @Schema(description = "Number of notes skipped", example = "1")
+        private int failed;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "A record an import skipped")
+    public static class ImportError {
+
+        @Schema(description = "1-based line (NDJSON) or array position (JSON array) of the record", example = "42")
+        private long record;
+
+        @Schema(description = "Why the record was skipped", example = "Title is required")
+        private String message;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "Outcome of an import")
+    public static class ImportResponse {
+
+        @Schema(description = "Records read from the upload", example = "1000")
+        private long processed;
+
+        @Schema(description = "Notes created", example = "998")
+        private long imported;
+
+        @Schema(description = "Records skipped", example = "2")
+        private long failed;
+
+        @Schema(description = "Skipped records with the reason, at most 100")
+        private List<ImportError> errors;
+
+        @Schema(description = "Whether more records failed than are listed in errors", example = "false")
+        private boolean errorsTruncated;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "Notes changed since a change token, oldest change first")
+    public static class ChangesResponse {
+
+        @Schema(description = "Created, updated, deleted (deletedAt set) or restored notes, each in its latest state")
+        private List<NoteResponse> changes;
+
+        @Schema(description = "Token to pass as 'since' on the next call", example = "1042")
+        private String nextToken;
+
+        @Schema(description = "Whether more changes are available right away", example = "false")
+        private boolean hasMore;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "A past version of a note, without its content")
+    public static class NoteRevisionSummary {
+
+        @Schema(description = "Note version this revision was saved as", example = "3")
+        private Long version;
+
+        @Schema(description = "Title at this version", example = "My First Note")
+        private String title;
+
+        @Schema(description = "Tags at this version", example = "[\"work\"]")
+        private List<String> tags;
+
+        @Schema(description = "When this version was saved")
+        private LocalDateTime createdAt;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "Paginated revisions of a note, newest first")
+    public static class PagedRevisionsResponse {
+
+        @Schema(description = "List of revisions")
+        private List<NoteRevisionSummary> revisions;
+
+        @Schema(description = "Current page number", example = "0")
+        private int page;
+
+        @Schema(description = "Page size", example = "10")
+        private int size;
+
+        @Schema(description = "Total number of revisions", example = "12")
+        private long totalElements;
+
+        @Schema(description = "Total number of pages", example = "2")
+        private int totalPages;
+
+        @Schema(description = "Is this the last page", example = "false")
+        private boolean last;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "A note as it was at one version")
+    public static class NoteRevisionResponse {
+
+        @Schema(description = "Note ID", example = "1")
+        private Long noteId;
+
+        @Schema(description = "Note version", example = "3")
+        private Long version;
+
+        @Schema(description = "Title at this version", example = "My First Note")
+        private String title;
+
+        @Schema(description = "Content at this version", example = "This is the content of my note")
+        private String content;
+
+        @Schema(description = "Tags at this version", example = "[\"work\"]")
+        private List<String> tags;
+
+        @Schema(description = "When this version was saved")
+        private LocalDateTime createdAt;
+    }
 }
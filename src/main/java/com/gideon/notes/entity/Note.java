@@ -5,12 +5,9 @@ import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.UpdateTimestamp;
-import org.hibernate.annotations.Where;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Entity
@@ -19,11 +16,12 @@ import java.util.stream.Collectors;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@Table(name = "notes")
+@Table(name = "notes", indexes = @Index(name = "idx_notes_user_active_updated", columnList = "user_id, deleted_at, updated_at, id"))
 public class Note {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notes_seq")
+    @SequenceGenerator(name = "notes_seq", sequenceName = "notes_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -35,6 +33,13 @@ public class Note {
     @Column(length = 1000)
     private String tags;
 
+    @Transient
+    private List<String> tagList;
+
+    @OneToMany(mappedBy = "note", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Builder.Default
+    private Set<NoteTag> tagEntries = new HashSet<>();
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -54,30 +59,68 @@ public class Note {
     @Column(name = "deleted_at")
     private LocalDateTime deletedAt;
 
+    // Assigned by the database on every insert and change, see db/migration/V6
+    @Column(name = "change_seq", insertable = false, updatable = false)
+    private Long changeSeq;
+
+    @OneToMany(mappedBy = "note", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Builder.Default
+    private List<NoteTerm> terms = new ArrayList<>();
+
+    @PrePersist
+    void indexTerms() {
+        terms.clear();
+        terms.addAll(NoteTerm.of(this));
+    }
 
     @Transient
     public List<String> getTagList() {
-        if (tags == null || tags.trim().isEmpty()) {
-            return new ArrayList<>();
+        if (tagList == null) {
+            tagList = parseTags(tags);
         }
-        return Arrays.stream(tags.split(","))
+        return tagList;
+    }
+
+    public static List<String> parseTags(String tags) {
+        return tags == null || tags.isBlank()
+                ? List.of()
+                : Arrays.stream(tags.split(","))
+                        .map(String::trim)
+                        .filter(tag -> !tag.isEmpty())
+                        .toList();
+    }
+
+    public static List<String> normalizeTagList(List<String> tagList) {
+        return tagList == null ? List.of() : tagList.stream()
                 .map(String::trim)
+                .map(String::toLowerCase)
                 .filter(tag -> !tag.isEmpty())
-                .collect(Collectors.toList());
+                .distinct()
+                .toList();
+    }
+
+    // Column value for an already normalized tag list
+    public static String joinTags(List<String> normalized) {
+        return normalized.isEmpty() ? null : String.join(",", normalized);
     }
 
     @Transient
     public void setTagList(List<String> tagList) {
-        if (tagList == null || tagList.isEmpty()) {
-            this.tags = null;
-        } else {
-            this.tags = tagList.stream()
-                    .map(String::trim)
-                    .map(String::toLowerCase)
-                    .filter(tag -> !tag.isEmpty())
-                    .distinct()
-                    .collect(Collectors.joining(","));
-        }
+        List<String> normalized = normalizeTagList(tagList);
+
+        this.tags = joinTags(normalized);
+        this.tagList = normalized;
+
+        tagEntries.removeIf(entry -> !normalized.contains(entry.getTag()));
+        Set<String> existing = tagEntries.stream().map(NoteTag::getTag).collect(Collectors.toSet());
+        normalized.stream()
+                .filter(tag -> !existing.contains(tag))
+                .forEach(tag -> tagEntries.add(NoteTag.builder().note(this).tag(tag).build()));
+    }
+
+    public void setTags(String tags) {
+        this.tags = tags;
+        this.tagList = null;
     }
 
     public void softDelete() {
@@ -0,0 +1,62 @@
+package com.gideon.notes.entity;
+
+import com.gideon.notes.utils.TextDelta;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "note_revisions",
+        uniqueConstraints = @UniqueConstraint(name = "uk_note_revisions_note_version", columnNames = {"note_id", "version"}))
+public class NoteRevision {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "note_revisions_seq")
+    @SequenceGenerator(name = "note_revisions_seq", sequenceName = "note_revisions_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "note_id", nullable = false)
+    private Long noteId;
+
+    @Column(nullable = false)
+    private Long version;
+
+    // Version of the snapshot this revision is rebuilt from; its own version for a snapshot
+    @Column(name = "base_version", nullable = false)
+    private Long baseVersion;
+
+    @Column(nullable = false)
+    private boolean snapshot;
+
+    @Column(nullable = false)
+    private String title;
+
+    @Column(length = 1000)
+    private String tags;
+
+    @Column(name = "prefix_length", nullable = false)
+    private int prefixLength;
+
+    @Column(name = "suffix_length", nullable = false)
+    private int suffixLength;
+
+    // Whole text for a snapshot, the inserted span for a delta
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String content;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    // Content of this revision, given the content of the previous one
+    public String applyTo(String previousContent) {
+        return snapshot ? content : new TextDelta(prefixLength, suffixLength, content).applyTo(previousContent);
+    }
+}
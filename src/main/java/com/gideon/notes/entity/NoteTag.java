@@ -0,0 +1,38 @@
+package com.gideon.notes.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "note_tags",
+        uniqueConstraints = @UniqueConstraint(name = "uk_note_tags_note_tag", columnNames = {"note_id", "tag"}),
+        indexes = @Index(name = "idx_note_tags_user_tag", columnList = "user_id, tag, note_id"))
+public class NoteTag {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "note_tags_seq")
+    @SequenceGenerator(name = "note_tags_seq", sequenceName = "note_tags_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "note_id", nullable = false)
+    private Note note;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private String tag;
+
+    @PrePersist
+    void assignUser() {
+        if (userId == null) {
+            userId = note.getUser().getId();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.gideon.notes.entity;
+
+import com.gideon.notes.utils.TextTokenizer;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "note_terms", indexes = {
+        @Index(name = "idx_note_terms_user_term", columnList = "user_id, term, note_id"),
+        @Index(name = "idx_note_terms_note", columnList = "note_id")
+})
+public class NoteTerm {
+
+    public static final int TITLE_WEIGHT = 3;
+    public static final int CONTENT_WEIGHT = 1;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "note_terms_seq")
+    @SequenceGenerator(name = "note_terms_seq", sequenceName = "note_terms_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "note_id", nullable = false)
+    private Note note;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false, length = TextTokenizer.MAX_TERM_LENGTH)
+    private String term;
+
+    @Column(nullable = false)
+    private int weight;
+
+
+    public static List<NoteTerm> of(Note note) {
+        return of(note, note.getUser().getId(), note.getTitle(), note.getContent());
+    }
+
+    // For a note that is only referenced, not loaded
+    public static List<NoteTerm> of(Note note, Long userId, String title, String content) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        TextTokenizer.tokenize(title).forEach(term -> weights.merge(term, TITLE_WEIGHT, Integer::sum));
+        TextTokenizer.tokenize(content).forEach(term -> weights.merge(term, CONTENT_WEIGHT, Integer::sum));
+
+        List<NoteTerm> terms = new ArrayList<>(weights.size());
+        weights.forEach((term, weight) -> terms.add(NoteTerm.builder()
+                .note(note)
+                .userId(userId)
+                .term(term)
+                .weight(weight)
+                .build()));
+        return terms;
+    }
+}
@@ -2,6 +2,7 @@ package com.gideon.notes.entity;
 
 
 import com.gideon.notes.enums.UserDomain;
+import com.gideon.notes.security.UserCacheEvictionListener;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
@@ -23,6 +24,7 @@ import java.util.Objects;
 @NoArgsConstructor
 @AllArgsConstructor
 @Table(name = "users")
+@EntityListeners(UserCacheEvictionListener.class)
 public class User implements UserDetails {
 
     @Id
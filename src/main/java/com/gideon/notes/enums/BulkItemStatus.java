@@ -0,0 +1,7 @@
+package com.gideon.notes.enums;
+
+public enum BulkItemStatus {
+    UPDATED,
+    NOT_FOUND,
+    VERSION_CONFLICT
+}
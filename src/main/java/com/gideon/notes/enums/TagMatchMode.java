@@ -0,0 +1,6 @@
+package com.gideon.notes.enums;
+
+public enum TagMatchMode {
+    ALL,
+    ANY
+}
@@ -0,0 +1,7 @@
+package com.gideon.notes.exception;
+
+public class ChangeTokenExpiredException extends RuntimeException{
+    public ChangeTokenExpiredException(String msg){
+        super(msg);
+    }
+}
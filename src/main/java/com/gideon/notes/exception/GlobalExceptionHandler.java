@@ -2,6 +2,7 @@ package com.gideon.notes.exception;
 
 import com.gideon.notes.dto.ApiResponse;
 import jakarta.persistence.OptimisticLockException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
@@ -45,6 +46,14 @@ public class GlobalExceptionHandler {
     }
 
 
+    @ExceptionHandler(ChangeTokenExpiredException.class)
+    public ResponseEntity<ApiResponse> handleChangeTokenExpiredException(ChangeTokenExpiredException ex){
+        return ResponseEntity
+                .status(GONE)
+                .body(new ApiResponse(ex.getMessage(), null));
+    }
+
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ApiResponse> handleMethodArgumentNotValidException(MethodArgumentNotValidException ex) {
         Map<String, String> errors = new HashMap<>();
@@ -74,6 +83,15 @@ public class GlobalExceptionHandler {
     }
 
 
+    @ExceptionHandler(PasswordHashingUnavailableException.class)
+    public ResponseEntity<ApiResponse> handlePasswordHashingUnavailableException(PasswordHashingUnavailableException ex){
+        return ResponseEntity
+                .status(SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ApiResponse(ex.getMessage(), null));
+    }
+
+
     @ExceptionHandler(EntityAlreadyExists.class)
     public ResponseEntity<ApiResponse> handleEntityAlreadyExistsException(EntityAlreadyExists ex){
         return ResponseEntity
@@ -0,0 +1,130 @@
+package com.gideon.notes.repository;
+
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AbstractCompareAndSwapBasedProxyManager;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AsyncCompareAndSwapOperation;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.CompareAndSwapOperation;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Keeps bucket4j buckets in the rate_limit_buckets table so every replica draws from the
+ * same buckets. Each consumption reads the row and writes it back only if its version is
+ * unchanged; bucket4j retries on a lost race, so no row locks are held.
+ *
+ * <p>JDBC has no non-blocking calls, so the async operations run the same statements on
+ * {@code asyncExecutor}, by default the calling thread.
+ */
+public class JdbcBucketProxyManager extends AbstractCompareAndSwapBasedProxyManager<String> {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Executor asyncExecutor;
+
+    public JdbcBucketProxyManager(JdbcTemplate jdbcTemplate) {
+        this(jdbcTemplate, Runnable::run);
+    }
+
+    public JdbcBucketProxyManager(JdbcTemplate jdbcTemplate, Executor asyncExecutor) {
+        super(ClientSideConfig.getDefault());
+        this.jdbcTemplate = jdbcTemplate;
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    @Override
+    protected CompareAndSwapOperation beginCompareAndSwapOperation(String key) {
+        return new CompareAndSwapOperation() {
+            // Version of the row as read by getStateData, null when there was no row
+            private Long version;
+
+            @Override
+            public Optional<byte[]> getStateData() {
+                List<StoredState> rows = jdbcTemplate.query(
+                        "SELECT state, version FROM rate_limit_buckets WHERE bucket_key = ?",
+                        (rs, rowNum) -> new StoredState(rs.getBytes("state"), rs.getLong("version")),
+                        key);
+                if (rows.isEmpty()) {
+                    version = null;
+                    return Optional.empty();
+                }
+                version = rows.get(0).version();
+                return Optional.of(rows.get(0).state());
+            }
+
+            @Override
+            public boolean compareAndSwap(byte[] originalData, byte[] newData, RemoteBucketState newState) {
+                Timestamp expiresAt = expiresAt(newState);
+                if (version == null) {
+                    try {
+                        return jdbcTemplate.update(
+                                "INSERT INTO rate_limit_buckets (bucket_key, state, version, expires_at) VALUES (?, ?, 0, ?)",
+                                key, newData, expiresAt) == 1;
+                    } catch (DuplicateKeyException e) {
+                        // Another instance created the bucket first
+                        return false;
+                    }
+                }
+                return jdbcTemplate.update(
+                        "UPDATE rate_limit_buckets SET state = ?, version = version + 1, expires_at = ? "
+                                + "WHERE bucket_key = ? AND version = ?",
+                        newData, expiresAt, key, version) == 1;
+            }
+        };
+    }
+
+    @Override
+    protected AsyncCompareAndSwapOperation beginAsyncCompareAndSwapOperation(String key) {
+        CompareAndSwapOperation operation = beginCompareAndSwapOperation(key);
+        return new AsyncCompareAndSwapOperation() {
+            @Override
+            public CompletableFuture<Optional<byte[]>> getStateData() {
+                return CompletableFuture.supplyAsync(operation::getStateData, asyncExecutor);
+            }
+
+            @Override
+            public CompletableFuture<Boolean> compareAndSwap(byte[] originalData, byte[] newData, RemoteBucketState newState) {
+                return CompletableFuture.supplyAsync(
+                        () -> operation.compareAndSwap(originalData, newData, newState), asyncExecutor);
+            }
+        };
+    }
+
+    @Override
+    public boolean isAsyncModeSupported() {
+        return true;
+    }
+
+    @Override
+    public void removeProxy(String key) {
+        jdbcTemplate.update("DELETE FROM rate_limit_buckets WHERE bucket_key = ?", key);
+    }
+
+    @Override
+    protected CompletableFuture<Void> removeAsync(String key) {
+        return CompletableFuture.runAsync(() -> removeProxy(key), asyncExecutor);
+    }
+
+    /**
+     * Deletes buckets that have refilled completely, which behave exactly like a bucket
+     * that was never created.
+     */
+    public int removeExpired() {
+        return jdbcTemplate.update("DELETE FROM rate_limit_buckets WHERE expires_at < ?",
+                new Timestamp(System.currentTimeMillis()));
+    }
+
+    private static Timestamp expiresAt(RemoteBucketState state) {
+        long nowMillis = System.currentTimeMillis();
+        long refillNanos = state.calculateFullRefillingTime(nowMillis * 1_000_000);
+        return new Timestamp(nowMillis + refillNanos / 1_000_000);
+    }
+
+    private record StoredState(byte[] state, long version) {
+    }
+}
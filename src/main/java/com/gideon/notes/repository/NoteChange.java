@@ -0,0 +1,8 @@
+package com.gideon.notes.repository;
+
+import com.gideon.notes.entity.Note;
+
+// changeSeq is selected as a column of its own: the entity maps it read-only, so an
+// instance already in the persistence context may not carry the current value
+public record NoteChange(Note note, Long changeSeq) {
+}
@@ -0,0 +1,34 @@
+package com.gideon.notes.repository;
+
+import com.gideon.notes.entity.Note;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position of the last note of a scroll page in (updatedAt DESC, id DESC) order,
+ * handed to clients as an opaque token.
+ */
+public record NoteCursor(LocalDateTime updatedAt, Long id) {
+
+    public static NoteCursor of(Note note) {
+        return new NoteCursor(note.getUpdatedAt(), note.getId());
+    }
+
+    public static NoteCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf('|');
+            return new NoteCursor(LocalDateTime.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        String value = updatedAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
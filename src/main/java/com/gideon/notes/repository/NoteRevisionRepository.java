@@ -0,0 +1,44 @@
+package com.gideon.notes.repository;
+
+import com.gideon.notes.entity.NoteRevision;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+
+@Repository
+public interface NoteRevisionRepository extends JpaRepository<NoteRevision, Long> {
+
+    interface RevisionSummary {
+        Long getVersion();
+        String getTitle();
+        String getTags();
+        LocalDateTime getCreatedAt();
+    }
+
+    interface RevisionHead {
+        Long getVersion();
+        Long getBaseVersion();
+    }
+
+    // Listing never reads the content column
+    @Query(value = "SELECT r.version AS version, r.title AS title, r.tags AS tags, r.createdAt AS createdAt " +
+            "FROM NoteRevision r WHERE r.noteId = :noteId ORDER BY r.version DESC",
+            countQuery = "SELECT COUNT(r) FROM NoteRevision r WHERE r.noteId = :noteId")
+    Page<RevisionSummary> findSummariesByNoteId(@Param("noteId") Long noteId, Pageable pageable);
+
+    Optional<RevisionHead> findFirstByNoteIdOrderByVersionDesc(Long noteId);
+
+    // The snapshot the requested revision is based on and every delta up to it, oldest first
+    @Query("SELECT r FROM NoteRevision r WHERE r.noteId = :noteId AND r.version <= :version " +
+            "AND r.version >= (SELECT b.baseVersion FROM NoteRevision b WHERE b.noteId = :noteId AND b.version = :version) " +
+            "ORDER BY r.version")
+    List<NoteRevision> findChain(@Param("noteId") Long noteId, @Param("version") Long version);
+}
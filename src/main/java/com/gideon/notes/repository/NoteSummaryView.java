@@ -0,0 +1,24 @@
+package com.gideon.notes.repository;
+
+import java.time.LocalDateTime;
+
+public record NoteSummaryView(Long id,
+                              String title,
+                              String snippet,
+                              Integer contentLength,
+                              String tags,
+                              Long version,
+                              LocalDateTime createdAt,
+                              LocalDateTime updatedAt) {
+
+    public static final int SNIPPET_LENGTH = 200;
+
+    // Truncation happens in the database so the full content column is never read into the heap
+    static final String SELECT = "SELECT new com.gideon.notes.repository.NoteSummaryView(" +
+            "n.id, n.title, SUBSTRING(n.content, 1, " + SNIPPET_LENGTH + "), LENGTH(n.content), " +
+            "n.tags, n.version, n.createdAt, n.updatedAt) FROM Note n";
+
+    public boolean truncated() {
+        return contentLength != null && contentLength > SNIPPET_LENGTH;
+    }
+}
@@ -0,0 +1,33 @@
+package com.gideon.notes.repository;
+
+import com.gideon.notes.entity.NoteTag;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+
+@Repository
+public interface NoteTagRepository extends JpaRepository<NoteTag, Long> {
+
+    @Query("SELECT t.note.id FROM NoteTag t WHERE t.userId = :userId AND t.tag IN :tags " +
+            "GROUP BY t.note.id HAVING COUNT(t) = :tagCount")
+    List<Long> findNoteIdsWithAllTags(@Param("userId") Long userId,
+                                      @Param("tags") Collection<String> tags,
+                                      @Param("tagCount") long tagCount);
+
+    @Query("SELECT DISTINCT t.note.id FROM NoteTag t WHERE t.userId = :userId AND t.tag IN :tags")
+    List<Long> findNoteIdsWithAnyTag(@Param("userId") Long userId, @Param("tags") Collection<String> tags);
+
+    @Modifying
+    @Query("DELETE FROM NoteTag t WHERE t.note.id = :noteId AND t.tag IN :tags")
+    void deleteByNoteIdAndTagIn(@Param("noteId") Long noteId, @Param("tags") Collection<String> tags);
+
+    @Modifying
+    @Query("DELETE FROM NoteTag t WHERE t.note.id IN :noteIds")
+    void deleteByNoteIdIn(@Param("noteIds") Collection<Long> noteIds);
+}
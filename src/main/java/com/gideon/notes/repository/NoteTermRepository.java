@@ -0,0 +1,45 @@
+package com.gideon.notes.repository;
+
+import com.gideon.notes.entity.Note;
+import com.gideon.notes.entity.NoteTerm;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+
+@Repository
+public interface NoteTermRepository extends JpaRepository<NoteTerm, Long> {
+
+    interface Posting {
+        Long getNoteId();
+        Long getScore();
+    }
+
+    // Range predicate instead of LIKE so prefix lookups stay on the (user_id, term) index.
+    // Terms of trashed notes stay indexed so a restore needs no reindexing; the join drops
+    // them by primary key, at a cost bounded by the matching terms rather than the trash.
+    @Query("SELECT n.id AS noteId, SUM(t.weight) AS score FROM NoteTerm t JOIN t.note n " +
+            "WHERE t.userId = :userId AND t.term >= :prefix AND t.term < :prefixEnd " +
+            "AND n.deletedAt IS NULL GROUP BY n.id")
+    List<Posting> findPostings(@Param("userId") Long userId,
+                               @Param("prefix") String prefix,
+                               @Param("prefixEnd") String prefixEnd);
+
+    @Modifying
+    @Query("DELETE FROM NoteTerm t WHERE t.note.id = :noteId")
+    void deleteByNoteId(@Param("noteId") Long noteId);
+
+    @Modifying
+    @Query("DELETE FROM NoteTerm t WHERE t.note.id IN :noteIds")
+    void deleteByNoteIdIn(@Param("noteIds") Collection<Long> noteIds);
+
+    @Query("SELECT n FROM Note n WHERE n.id > :afterId " +
+            "AND NOT EXISTS (SELECT 1 FROM NoteTerm t WHERE t.note = n) ORDER BY n.id")
+    List<Note> findUnindexedNotes(@Param("afterId") Long afterId, Pageable pageable);
+}
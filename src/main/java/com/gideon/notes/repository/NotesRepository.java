@@ -2,48 +2,192 @@ package com.gideon.notes.repository;
 
 import com.gideon.notes.entity.Note;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 
 @Repository
-public interface NotesRepository extends JpaRepository<Note, Long> {
+public interface NotesRepository extends JpaRepository<Note, Long>, NotesRepositoryCustom {
 
-    @Query("SELECT n FROM Note n WHERE n.user.id = :userId")
+    // Rows the driver fetches per round trip while streaming an export
+    int EXPORT_FETCH_SIZE = 500;
+
+    interface NoteState {
+        Long getId();
+        Long getVersion();
+        boolean isDeleted();
+    }
+
+    interface TrashedNote {
+        Long getId();
+        LocalDateTime getDeletedAt();
+    }
+
+    // State of an edited note before the edit
+    interface PreviousNote {
+        Long getVersion();
+        String getTitle();
+        String getContent();
+        String getTags();
+        LocalDateTime getCreatedAt();
+    }
+
+    interface RestoredNote {
+        String getTitle();
+        String getContent();
+        String getTags();
+        Long getVersion();
+        LocalDateTime getCreatedAt();
+        LocalDateTime getUpdatedAt();
+        LocalDateTime getDeletedAt();
+    }
+
+    // Reads see active notes only unless their name says otherwise (trash, changes, exports
+    // with includeDeleted, bulk state checks); soft-deleted notes are reached through those
+
+    @Query("SELECT n FROM Note n WHERE n.user.id = :userId AND n.deletedAt IS NULL")
     Page<Note> findByUserId(Long userId, Pageable pageable);
 
-    Optional<Note> findByIdAndUserId(Long id, Long userId);
-
-    @Query("SELECT n FROM Note n WHERE n.user.id = :userId " +
-            "AND (LOWER(n.title) LIKE LOWER(CONCAT('%', :search, '%')) " +
-            "OR LOWER(n.content) LIKE LOWER(CONCAT('%', :search, '%')))")
-    Page<Note> searchNotes(@Param("userId") Long userId,
-                           @Param("search") String search,
-                           Pageable pageable);
-
-    @Query("SELECT n FROM Note n WHERE n.user.id = :userId " +
-            "AND LOWER(n.tags) LIKE LOWER(CONCAT('%', :tag, '%'))")
-    Page<Note> findByUserIdAndTag(@Param("userId") Long userId,
-                                  @Param("tag") String tag,
-                                  Pageable pageable);
-
-    @Query("SELECT n FROM Note n WHERE n.user.id = :userId " +
-            "AND (LOWER(n.title) LIKE LOWER(CONCAT('%', :search, '%')) " +
-            "OR LOWER(n.content) LIKE LOWER(CONCAT('%', :search, '%'))) " +
-            "AND LOWER(n.tags) LIKE LOWER(CONCAT('%', :tag, '%'))")
-    Page<Note> searchNotesWithTag(@Param("userId") Long userId,
-                                  @Param("search") String search,
-                                  @Param("tag") String tag,
-                                  Pageable pageable);
-
-
-    @Query(value = "SELECT * FROM notes WHERE id = :id AND user_id = :userId AND deleted_at IS NOT NULL",
-            nativeQuery = true)
-    Optional<Note> findDeletedNoteByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+    @Query("SELECT n FROM Note n WHERE n.id = :id AND n.user.id = :userId AND n.deletedAt IS NULL")
+    Optional<Note> findByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    @Query("SELECT COUNT(n) > 0 FROM Note n WHERE n.id = :id AND n.user.id = :userId AND n.deletedAt IS NULL")
+    boolean existsByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    @Query("SELECT n.version FROM Note n WHERE n.id = :id AND n.user.id = :userId AND n.deletedAt IS NULL")
+    Optional<Long> findVersionByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    @Query("SELECT n FROM Note n WHERE n.user.id = :userId AND n.deletedAt IS NOT NULL ORDER BY n.deletedAt DESC, n.id DESC")
+    Page<Note> findTrashByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    // Answered from the end of idx_notes_user_change and the user's note_purges row, so a
+    // purge never moves it back; 0 when the user never had a note
+    @Query(value = "SELECT GREATEST(COALESCE((SELECT MAX(change_seq) FROM notes WHERE user_id = :userId), 0), " +
+            "COALESCE((SELECT change_seq FROM note_purges WHERE user_id = :userId), 0))", nativeQuery = true)
+    long findLastChangeSeqByUserId(@Param("userId") Long userId);
+
+    @Query(value = "SELECT purged_through FROM note_purges WHERE user_id = :userId", nativeQuery = true)
+    Optional<Long> findPurgedThroughByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT n FROM Note n WHERE n.user.id = :userId AND n.id IN :ids AND n.deletedAt IS NULL")
+    List<Note> findByUserIdAndIdIn(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+
+    @Query(NoteSummaryView.SELECT + " WHERE n.user.id = :userId AND n.id IN :ids AND n.deletedAt IS NULL")
+    List<NoteSummaryView> findSummariesByUserIdAndIdIn(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+
+    @Query("SELECT n FROM Note n WHERE n.id > :afterId AND n.tags IS NOT NULL " +
+            "AND NOT EXISTS (SELECT 1 FROM NoteTag t WHERE t.note = n) ORDER BY n.id")
+    List<Note> findNotesWithUnindexedTags(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Range scan on idx_notes_user_change
+    @Query("SELECT new com.gideon.notes.repository.NoteChange(n, n.changeSeq) FROM Note n " +
+            "WHERE n.user.id = :userId AND n.changeSeq > :since ORDER BY n.changeSeq")
+    List<NoteChange> findChangesSince(@Param("userId") Long userId,
+                                      @Param("since") long since,
+                                      Pageable pageable);
+
+    // Ordered along idx_notes_user_created so the export never sorts
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT n FROM Note n WHERE n.user.id = :userId ORDER BY n.createdAt, n.id")
+    Stream<Note> streamByUserId(@Param("userId") Long userId);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT n FROM Note n WHERE n.user.id = :userId AND n.deletedAt IS NULL ORDER BY n.createdAt, n.id")
+    Stream<Note> streamActiveByUserId(@Param("userId") Long userId);
+
+    // Locks the rows so the versions read here still hold when a bulk update runs
+    @Query(value = "SELECT id AS id, version AS version, deleted_at IS NOT NULL AS deleted FROM notes " +
+            "WHERE user_id = :userId AND id IN (:ids) FOR UPDATE", nativeQuery = true)
+    List<NoteState> lockStatesByUserIdAndIdIn(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT n FROM Note n WHERE n.user.id = :userId AND n.id IN :ids AND n.deletedAt IS NULL")
+    List<Note> lockActiveByUserIdAndIdIn(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+
+    // Next purge batch in (deleted_at, id) order, ranging over idx_notes_trash from the keyset
+    // position; locked so a concurrent restore waits for the batch to commit
+    @Query(value = "SELECT id AS id, deleted_at AS deletedAt FROM notes " +
+            "WHERE deleted_at >= :afterDeletedAt AND deleted_at < :cutoff " +
+            "AND NOT (deleted_at = :afterDeletedAt AND id <= :afterId) " +
+            "ORDER BY deleted_at, id FETCH FIRST :limit ROWS ONLY FOR UPDATE", nativeQuery = true)
+    List<TrashedNote> lockTrashBatch(@Param("cutoff") LocalDateTime cutoff,
+                                     @Param("afterDeletedAt") LocalDateTime afterDeletedAt,
+                                     @Param("afterId") long afterId,
+                                     @Param("limit") int limit);
+
+    // Records the notes about to be purged in each owner's note_purges row (V10)
+    @Modifying
+    @Query(value = "MERGE INTO note_purges p USING (SELECT user_id, MAX(change_seq) AS purged_through " +
+            "FROM notes WHERE id IN :ids GROUP BY user_id) s ON p.user_id = s.user_id " +
+            "WHEN MATCHED THEN UPDATE SET purged_through = GREATEST(p.purged_through, s.purged_through), " +
+            "change_seq = NEXT VALUE FOR note_change_seq " +
+            "WHEN NOT MATCHED THEN INSERT (user_id, purged_through, change_seq) " +
+            "VALUES (s.user_id, s.purged_through, NEXT VALUE FOR note_change_seq)", nativeQuery = true)
+    int recordPurge(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM Note n WHERE n.id IN :ids")
+    int purgeByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Updates the row and reads back the replaced content and what the response needs in one
+    // statement (H2 data change delta table); empty when the note is missing, trashed or,
+    // with a version given, was changed since
+    @Query(value = "SELECT version AS version, title AS title, content AS content, tags AS tags, " +
+            "created_at AS createdAt FROM OLD TABLE (UPDATE notes SET title = :title, content = :content, " +
+            "tags = :tags, updated_at = :now, version = version + 1 " +
+            "WHERE id = :id AND user_id = :userId AND deleted_at IS NULL " +
+            "AND (:version IS NULL OR version = :version))", nativeQuery = true)
+    Optional<PreviousNote> updateContent(@Param("id") Long id,
+                                         @Param("userId") Long userId,
+                                         @Param("version") Long version,
+                                         @Param("title") String title,
+                                         @Param("content") String content,
+                                         @Param("tags") String tags,
+                                         @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Note n SET n.deletedAt = :now, n.updatedAt = :now, n.version = n.version + 1 " +
+            "WHERE n.user.id = :userId AND n.id IN :ids AND n.deletedAt IS NULL")
+    int softDeleteByUserIdAndIdIn(@Param("userId") Long userId,
+                                  @Param("ids") Collection<Long> ids,
+                                  @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Note n SET n.deletedAt = NULL, n.updatedAt = :now, n.version = n.version + 1 " +
+            "WHERE n.user.id = :userId AND n.id IN :ids AND n.deletedAt IS NOT NULL")
+    int restoreByUserIdAndIdIn(@Param("userId") Long userId,
+                               @Param("ids") Collection<Long> ids,
+                               @Param("now") LocalDateTime now);
+
+    // Restores a deleted note and returns its columns in the same statement; empty when the
+    // user has no such deleted note
+    @Query(value = "SELECT title AS title, content AS content, tags AS tags, version AS version, " +
+            "created_at AS createdAt, updated_at AS updatedAt, deleted_at AS deletedAt FROM FINAL TABLE " +
+            "(UPDATE notes SET deleted_at = NULL, updated_at = :now, version = version + 1 " +
+            "WHERE id = :id AND user_id = :userId AND deleted_at IS NOT NULL)", nativeQuery = true)
+    Optional<RestoredNote> restore(@Param("id") Long id,
+                                   @Param("userId") Long userId,
+                                   @Param("now") LocalDateTime now);
 }
@@ -0,0 +1,12 @@
+package com.gideon.notes.repository;
+
+import com.gideon.notes.entity.Note;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+public interface NotesRepositoryCustom {
+    Page<Note> findByUserIdAndTags(Long userId, TagFilter filter, Pageable pageable);
+    Page<NoteSummaryView> findSummariesByUserIdAndTags(Long userId, TagFilter filter, Pageable pageable);
+    Slice<Note> findByUserIdAndTagsAfter(Long userId, TagFilter filter, NoteCursor after, int size);
+}
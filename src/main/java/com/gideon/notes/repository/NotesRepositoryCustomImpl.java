@@ -0,0 +1,107 @@
+package com.gideon.notes.repository;
+
+import com.gideon.notes.entity.Note;
+import com.gideon.notes.enums.TagMatchMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.List;
+
+public class NotesRepositoryCustomImpl implements NotesRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<Note> findByUserIdAndTags(Long userId, TagFilter filter, Pageable pageable) {
+        return findPage("SELECT n FROM Note n", Note.class, userId, filter, pageable);
+    }
+
+    @Override
+    public Page<NoteSummaryView> findSummariesByUserIdAndTags(Long userId, TagFilter filter, Pageable pageable) {
+        return findPage(NoteSummaryView.SELECT, NoteSummaryView.class, userId, filter, pageable);
+    }
+
+    private <T> Page<T> findPage(String select, Class<T> type, Long userId, TagFilter filter, Pageable pageable) {
+        String where = where(filter);
+
+        TypedQuery<T> query = entityManager.createQuery(
+                QueryUtils.applySorting(select + where, pageable.getSort(), "n"), type);
+        bind(query, userId, filter);
+        query.setFirstResult((int) pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize());
+        List<T> content = query.getResultList();
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> {
+            TypedQuery<Long> count = entityManager.createQuery("SELECT COUNT(n) FROM Note n" + where, Long.class);
+            bind(count, userId, filter);
+            return count.getSingleResult();
+        });
+    }
+
+
+    // Seek past the cursor on (updated_at, id) and fetch one extra row to learn whether
+    // another slice follows, so no count query is needed
+    @Override
+    public Slice<Note> findByUserIdAndTagsAfter(Long userId, TagFilter filter, NoteCursor after, int size) {
+        String jpql = "SELECT n FROM Note n" + where(filter);
+        if (after != null) {
+            jpql += " AND (n.updatedAt < :cursorUpdatedAt OR (n.updatedAt = :cursorUpdatedAt AND n.id < :cursorId))";
+        }
+        jpql += " ORDER BY n.updatedAt DESC, n.id DESC";
+
+        TypedQuery<Note> query = entityManager.createQuery(jpql, Note.class);
+        bind(query, userId, filter);
+        if (after != null) {
+            query.setParameter("cursorUpdatedAt", after.updatedAt());
+            query.setParameter("cursorId", after.id());
+        }
+        query.setMaxResults(size + 1);
+        List<Note> content = query.getResultList();
+
+        boolean hasNext = content.size() > size;
+        if (hasNext) {
+            content = content.subList(0, size);
+        }
+        return new SliceImpl<>(content, PageRequest.ofSize(size), hasNext);
+    }
+
+
+    // Active notes only. Tag set operations run as semi-joins on the (user_id, tag, note_id)
+    // index of note_tags
+    private String where(TagFilter filter) {
+        StringBuilder where = new StringBuilder(" WHERE n.user.id = :userId AND n.deletedAt IS NULL");
+        if (!filter.tags().isEmpty()) {
+            where.append(" AND n.id IN (SELECT t.note.id FROM NoteTag t WHERE t.userId = :userId AND t.tag IN :tags");
+            if (filter.mode() == TagMatchMode.ALL && filter.tags().size() > 1) {
+                where.append(" GROUP BY t.note.id HAVING COUNT(t) = :tagCount");
+            }
+            where.append(")");
+        }
+        if (!filter.excludedTags().isEmpty()) {
+            where.append(" AND n.id NOT IN (SELECT x.note.id FROM NoteTag x WHERE x.userId = :userId AND x.tag IN :excludedTags)");
+        }
+        return where.toString();
+    }
+
+    private void bind(TypedQuery<?> query, Long userId, TagFilter filter) {
+        query.setParameter("userId", userId);
+        if (!filter.tags().isEmpty()) {
+            query.setParameter("tags", filter.tags());
+            if (filter.mode() == TagMatchMode.ALL && filter.tags().size() > 1) {
+                query.setParameter("tagCount", (long) filter.tags().size());
+            }
+        }
+        if (!filter.excludedTags().isEmpty()) {
+            query.setParameter("excludedTags", filter.excludedTags());
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.gideon.notes.repository;
+
+import com.gideon.notes.enums.TagMatchMode;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+public record TagFilter(List<String> tags, TagMatchMode mode, List<String> excludedTags) {
+
+    public static final TagFilter NONE = new TagFilter(List.of(), TagMatchMode.ALL, List.of());
+
+    public static TagFilter of(String tags, String mode, String excludedTags) {
+        TagMatchMode matchMode = TagMatchMode.ALL;
+        if (mode != null && !mode.isBlank()) {
+            try {
+                matchMode = TagMatchMode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("tagMode must be one of: all, any");
+            }
+        }
+        return new TagFilter(split(tags), matchMode, split(excludedTags));
+    }
+
+    public boolean isEmpty() {
+        return tags.isEmpty() && excludedTags.isEmpty();
+    }
+
+    private static List<String> split(String value) {
+        if (value == null || value.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .map(String::toLowerCase)
+                .filter(tag -> !tag.isEmpty())
+                .distinct()
+                .toList();
+    }
+}
@@ -1,8 +1,8 @@
 package com.gideon.notes.security;
 
-import com.gideon.notes.entity.User;
+import com.gideon.notes.config.PasswordHashingProperties;
 import com.gideon.notes.exception.EntityNotFoundException;
-import com.gideon.notes.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -20,22 +20,22 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class ApplicationConfig {
 
-    private final UserRepository userRepo;
+    private final UserCache userCache;
 
     @Bean
     public UserDetailsService userDetailsService(){
         return username -> {
-            Optional<User> user = userRepo.findByEmail(username);
+            Optional<CachedUser> user = userCache.findByEmail(username);
             return user.orElseThrow(() -> new EntityNotFoundException("User not found"));
         };
     }
 
 
     @Bean
-    public AuthenticationProvider authenticationProvider(){
+    public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder){
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService());
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
         return authProvider;
     }
 
@@ -46,7 +46,7 @@ public class ApplicationConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder(){
-        return new BCryptPasswordEncoder();
+    public BoundedPasswordEncoder passwordEncoder(PasswordHashingProperties properties, MeterRegistry meterRegistry){
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), properties, meterRegistry);
     }
 }
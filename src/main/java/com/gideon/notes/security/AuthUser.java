@@ -0,0 +1,43 @@
+package com.gideon.notes.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Principal of an authenticated request. Carries only what the token vouches for, so it can be
+ * built from JWT claims without touching the users table.
+ */
+@Getter
+@AllArgsConstructor
+public class AuthUser implements UserDetails {
+
+    private final Long id;
+    private final String email;
+    private final List<String> roles;
+
+    public static AuthUser from(CachedUser user) {
+        List<String> roles = user.userRole() == null ? List.of() : List.of(user.userRole().name());
+        return new AuthUser(user.id(), user.email(), roles);
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return roles.stream().map(SimpleGrantedAuthority::new).toList();
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+}
@@ -0,0 +1,44 @@
+package com.gideon.notes.security;
+
+import com.gideon.notes.entity.User;
+import com.gideon.notes.enums.UserDomain;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable copy of a users row as held by {@link UserCache}. Entries are shared by every
+ * request thread, so they carry plain values instead of a managed {@link User} entity.
+ */
+public record CachedUser(Long id, String email, String realUserName, String password, UserDomain userRole)
+        implements UserDetails {
+
+    public static CachedUser of(User user) {
+        return new CachedUser(user.getId(), user.getEmail(), user.getRealUserName(), user.getPassword(),
+                user.getUserRole());
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return userRole == null ? List.of() : List.of(new SimpleGrantedAuthority(userRole.name()));
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    // Keeps the password hash out of logs
+    @Override
+    public String toString() {
+        return "CachedUser[id=" + id + ", email=" + email + ", userRole=" + userRole + "]";
+    }
+}
@@ -1,58 +1,122 @@
 package com.gideon.notes.security;
 
 import com.gideon.notes.config.JwtProperties;
-import com.gideon.notes.entity.User;
 import com.gideon.notes.exception.EntityNotFoundException;
 import com.gideon.notes.exception.ExpiredAuthTokenException;
 import com.gideon.notes.exception.InvalidAuthTokenException;
-import com.gideon.notes.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
-import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import java.security.Key;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 
 @Service
-@RequiredArgsConstructor
 public class JwtService {
 
     private final JwtProperties jwtProperties;
-    private final UserRepository userRepo;
+    private final UserCache userCache;
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final Cache<String, Claims> verifiedTokens;
+
+    public JwtService(JwtProperties jwtProperties, UserCache userCache, MeterRegistry meterRegistry) {
+        this.jwtProperties = jwtProperties;
+        this.userCache = userCache;
+        this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtProperties.getSecretKey()));
+        this.parser = Jwts.parser().verifyWith(signingKey).build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(jwtProperties.getVerifiedTokenCacheSize())
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String digest, Claims claims, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(claims.getExpiration().getTime() - System.currentTimeMillis());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String digest, Claims claims, long currentTime, long currentDuration) {
+                        return expireAfterCreate(digest, claims, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String digest, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "verified-tokens");
+    }
+
+    /**
+     * Verifies the signature and expiry of a token and returns its claims. Callers needing
+     * several claims should keep the result rather than calling the extract methods.
+     *
+     * <p>Claims of a verified token are remembered until the token expires, so a client
+     * reusing its token skips signature checking and parsing.
+     */
+    public Claims verify(String token) {
+        String digest = digest(token);
+        Claims claims = verifiedTokens.getIfPresent(digest);
+        if (claims != null && claims.getExpiration().after(new Date())) {
+            return claims;
+        }
+
+        // Throws for expired tokens, so an entry that outlived its token is never served
+        claims = parser.parseSignedClaims(token).getPayload();
+        if (claims.getExpiration() != null) {
+            verifiedTokens.put(digest, claims);
+        }
+        return claims;
+    }
+
+    // Keyed by digest so bearer tokens themselves are not kept in memory
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
 
     public String extractUsername(String jwtToken) {
         return extractClaim(jwtToken, Claims::getSubject);
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
+        final Claims claims = verify(token);
         return claimsResolver.apply(claims);
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts
-                .parser()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
+    public AuthUser toPrincipal(Claims claims) {
+        Long id = claims.get("id", Long.class);
+        if (id == null) {
+            throw new InvalidAuthTokenException("Access token carries no user id");
+        }
 
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(jwtProperties.getSecretKey());
-        return Keys.hmacShaKeyFor(keyBytes);
+        List<?> roles = claims.get("roles", List.class);
+        return new AuthUser(id, claims.getSubject(), roles == null ? List.of() : roles.stream()
+                .map(String::valueOf)
+                .filter(role -> !role.isBlank())
+                .toList());
     }
 
-
     public String generateJwtToken(UserDetails userDetails) {
         return generateToken(new HashMap<>(), userDetails, jwtProperties.getTokenExp());
     }
@@ -72,14 +136,14 @@ public class JwtService {
         Long id;
         String userRole = "";
 
-        Optional<User> userOptional = userRepo.findByEmail(userDetails.getUsername());
+        Optional<CachedUser> userOptional = userCache.findByEmail(userDetails.getUsername());
         if(userOptional.isEmpty()) {
             throw new EntityNotFoundException("User does not exist");
         }
-        User user = userOptional.get();
-        if(Objects.nonNull(user.getUserRole()))
-            userRole = user.getUserRole().name();
-        id = user.getId();
+        CachedUser user = userOptional.get();
+        if(Objects.nonNull(user.userRole()))
+            userRole = user.userRole().name();
+        id = user.id();
 
         return Jwts
                 .builder()
@@ -90,16 +154,19 @@ public class JwtService {
                 .subject(userDetails.getUsername())
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, Jwts.SIG.HS256)
                 .compact();
     }
 
     public boolean isTokenValid(String jwt, UserDetails userDetails) {
-        final String username = extractUsername(jwt);
-        if(!username.equals(userDetails.getUsername())) {
+        return isTokenValid(verify(jwt), userDetails);
+    }
+
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        if(!claims.getSubject().equals(userDetails.getUsername())) {
             throw new InvalidAuthTokenException("Invalid access token");
         }
-        if(tokenIsExpired(jwt)) {
+        if(claims.getExpiration().before(new Date())) {
             throw new ExpiredAuthTokenException("Expired access token");
         }
         return true;
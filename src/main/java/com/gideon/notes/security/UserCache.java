@@ -0,0 +1,104 @@
+package com.gideon.notes.security;
+
+import com.gideon.notes.config.UserCacheProperties;
+import com.gideon.notes.entity.User;
+import com.gideon.notes.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Users looked up by email, shared by the JWT filter and the services handling the
+ * request. Unknown emails are not cached, so a user is visible as soon as they sign up.
+ */
+@Component
+public class UserCache {
+
+    private final UserRepository userRepo;
+    private final Cache<String, CachedUser> usersByEmail;
+    // Email each cached user is stored under, so a user is evicted without scanning the cache
+    private final ConcurrentMap<Long, String> emailsById = new ConcurrentHashMap<>();
+    // Bumped before every eviction; a load that saw an eviction start does not cache its row
+    private final AtomicLong evictions = new AtomicLong();
+
+    public UserCache(UserRepository userRepo, UserCacheProperties properties, MeterRegistry meterRegistry) {
+        this.userRepo = userRepo;
+        this.usersByEmail = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .evictionListener((String email, CachedUser user, RemovalCause cause) -> {
+                    if (user != null) {
+                        emailsById.remove(user.id(), email);
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, usersByEmail, "users");
+    }
+
+    // The query runs outside the cache's compute block: that holds a monitor, which would pin a
+    // virtual thread to its carrier for the whole round trip
+    public Optional<CachedUser> findByEmail(String email) {
+        CachedUser cached = usersByEmail.getIfPresent(email);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        long evictionsBefore = evictions.get();
+        Optional<CachedUser> user = userRepo.findByEmail(email).map(CachedUser::of);
+        user.ifPresent(found -> usersByEmail.asMap().compute(email, (key, current) -> {
+            if (evictions.get() != evictionsBefore) {
+                return current;
+            }
+            emailsById.put(found.id(), email);
+            return found;
+        }));
+        return user;
+    }
+
+    /**
+     * Drops a changed user right away and again once the change's transaction completes.
+     * Until the commit other threads still read the old row, and a miss among them would
+     * cache it again after the first eviction.
+     */
+    public void evict(User user) {
+        Long id = user.getId();
+        String email = user.getEmail();
+        evict(id, email);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(id, email);
+                }
+            });
+        }
+    }
+
+    // Looks up the id as well so an entry cached under a user's previous email is dropped too
+    private void evict(Long id, String email) {
+        evictions.incrementAndGet();
+        usersByEmail.invalidate(email);
+        String indexedEmail = id == null ? null : emailsById.remove(id);
+        if (indexedEmail != null) {
+            usersByEmail.invalidate(indexedEmail);
+        }
+    }
+
+    public void evictAll() {
+        evictions.incrementAndGet();
+        usersByEmail.invalidateAll();
+        emailsById.clear();
+    }
+}
@@ -0,0 +1,21 @@
+package com.gideon.notes.security;
+
+import com.gideon.notes.entity.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+
+// Created by Hibernate through Spring's bean container while the repositories are still being
+// set up, so the cache is looked up on first use
+@RequiredArgsConstructor
+public class UserCacheEvictionListener {
+
+    private final ObjectProvider<UserCache> userCache;
+
+    @PostUpdate
+    @PostRemove
+    void evict(User user) {
+        userCache.getObject().evict(user);
+    }
+}
@@ -1,36 +1,80 @@
 package com.gideon.notes.service;
 
-import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.gideon.notes.config.RateLimitProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
 import io.github.bucket4j.Refill;
-import lombok.RequiredArgsConstructor;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.distributed.proxy.RemoteBucketBuilder;
+import io.github.bucket4j.distributed.proxy.optimization.DelayParameters;
+import io.github.bucket4j.distributed.proxy.optimization.Optimizations;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 
-import java.time.Duration;
+import java.util.function.Function;
 
 @Service
-@RequiredArgsConstructor
 public class RateLimitService {
 
-    private final LoadingCache<String, Bucket> cache;
+    // One cache per limit type, indexed by ordinal, so a client id is the whole key and
+    // resolving an existing bucket allocates nothing
+    private final Limiter[] limiters;
 
-    public Bucket resolveBucket(String key, RateLimitType type) {
-        String rateLimitKey = key + ":" + type.name();
-        return cache.get(rateLimitKey, k -> createBucket(type));
+    public RateLimitService(RateLimitProperties properties) {
+        this(properties, null);
+    }
+
+    /**
+     * With a shared store the cached buckets are proxies to rows in that store; they are
+     * still cached so the sync mode can keep its local state between requests.
+     */
+    @Autowired
+    public RateLimitService(RateLimitProperties properties, @Nullable ProxyManager<String> sharedStore) {
+        RateLimitType[] types = RateLimitType.values();
+        limiters = new Limiter[types.length];
+        for (RateLimitType type : types) {
+            RateLimitProperties.Limit limit = properties.limitFor(type);
+            Bandwidth bandwidth = Bandwidth.classic(limit.getCapacity(),
+                    Refill.intervally(limit.getRefill(), limit.getDuration()));
+
+            Cache<String, Bucket> buckets = Caffeine.newBuilder()
+                    .maximumSize(properties.getMaxClients())
+                    .expireAfterAccess(properties.getIdleTimeout())
+                    .build();
+
+            Function<String, Bucket> newBucket;
+            if (sharedStore == null) {
+                newBucket = clientId -> Bucket.builder().addLimit(bandwidth).build();
+            } else {
+                RemoteBucketBuilder<String> builder = withSync(sharedStore.builder(), properties.getSync());
+                BucketConfiguration configuration = BucketConfiguration.builder().addLimit(bandwidth).build();
+                String prefix = type.name() + ':';
+                newBucket = clientId -> builder.build(prefix + clientId, configuration);
+            }
+            limiters[type.ordinal()] = new Limiter(buckets, newBucket);
+        }
     }
 
-    private Bucket createBucket(RateLimitType type) {
-        Bandwidth limit = switch (type) {
-            case AUTH -> Bandwidth.classic(5, Refill.intervally(5, Duration.ofMinutes(1)));
-            case API -> Bandwidth.classic(100, Refill.intervally(100, Duration.ofMinutes(1)));
-            case NOTES_CREATE -> Bandwidth.classic(20, Refill.intervally(20, Duration.ofMinutes(1)));
-            case NOTES_UPDATE -> Bandwidth.classic(30, Refill.intervally(30, Duration.ofMinutes(1)));
+    private static RemoteBucketBuilder<String> withSync(RemoteBucketBuilder<String> builder, RateLimitProperties.Sync sync) {
+        return switch (sync.getMode()) {
+            case NONE -> builder;
+            case BATCHING -> builder.withOptimization(Optimizations.batching());
+            case DELAYING -> builder.withOptimization(Optimizations.delaying(
+                    new DelayParameters(sync.getMaxUnsynchronizedTokens(), sync.getMaxUnsynchronizedTimeout())));
         };
+    }
+
+    public Bucket resolveBucket(String key, RateLimitType type) {
+        Limiter limiter = limiters[type.ordinal()];
+        Bucket bucket = limiter.buckets().getIfPresent(key);
+        return bucket != null ? bucket : limiter.buckets().get(key, limiter.newBucket());
+    }
 
-        return Bucket.builder()
-                .addLimit(limit)
-                .build();
+    private record Limiter(Cache<String, Bucket> buckets, Function<String, Bucket> newBucket) {
     }
 
     public enum RateLimitType {
@@ -39,4 +83,4 @@ public class RateLimitService {
         NOTES_CREATE,
         NOTES_UPDATE
     }
-}
\ No newline at end of file
+}
@@ -5,7 +5,10 @@ import com.gideon.notes.entity.User;
 import com.gideon.notes.enums.UserDomain;
 import com.gideon.notes.exception.EntityNotFoundException;
 import com.gideon.notes.repository.UserRepository;
+import com.gideon.notes.security.CachedUser;
 import com.gideon.notes.security.JwtService;
+import com.gideon.notes.security.UserCache;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -21,6 +24,7 @@ import org.springframework.transaction.annotation.Transactional;
 public class AuthService implements AuthServiceInt {
 
     private final UserRepository userRepo;
+    private final UserCache userCache;
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
@@ -74,7 +78,7 @@ public class AuthService implements AuthServiceInt {
         );
 
 
-        User user = userRepo.findByEmail(request.getEmail())
+        CachedUser user = userCache.findByEmail(request.getEmail())
                 .orElseThrow(() -> new EntityNotFoundException("User not found"));
 
         UserDetails userDetails = userDetailsService.loadUserByUsername(request.getEmail());
@@ -84,9 +88,9 @@ public class AuthService implements AuthServiceInt {
         return AuthDto.AuthResponse.builder()
                 .token(token)
                 .refresh_token(refreshToken)
-                .userId(user.getId())
-                .username(user.getRealUserName())
-                .email(user.getEmail())
+                .userId(user.id())
+                .username(user.realUserName())
+                .email(user.email())
                 .build();
     }
 
@@ -95,19 +99,20 @@ public class AuthService implements AuthServiceInt {
     @Transactional(readOnly = true)
     public AuthDto.AuthResponse refreshToken(AuthDto.RefreshTokenRequest request) {
         try {
-            // Extract email from refresh token
-            String email = jwtService.extractUsername(request.getRefreshToken());
+            // Verify the refresh token once and read the email from it
+            Claims claims = jwtService.verify(request.getRefreshToken());
+            String email = claims.getSubject();
 
             // Load user details
             UserDetails userDetails = userDetailsService.loadUserByUsername(email);
 
             // Validate refresh token
-            if (!jwtService.isTokenValid(request.getRefreshToken(), userDetails)) {
+            if (!jwtService.isTokenValid(claims, userDetails)) {
                 throw new IllegalArgumentException("Invalid or expired refresh token");
             }
 
             // Get user from database
-            User user = userRepo.findByEmail(email)
+            CachedUser user = userCache.findByEmail(email)
                     .orElseThrow(() -> new IllegalArgumentException("User not found"));
 
             // Generate new tokens
@@ -117,9 +122,9 @@ public class AuthService implements AuthServiceInt {
             return AuthDto.AuthResponse.builder()
                     .token(newAccessToken)
                     .refresh_token(newRefreshToken)
-                    .userId(user.getId())
-                    .username(user.getRealUserName())
-                    .email(user.getEmail())
+                    .userId(user.id())
+                    .username(user.realUserName())
+                    .email(user.email())
                     .build();
 
         } catch (JwtException e) {
@@ -0,0 +1,185 @@
+package com.gideon.notes.service.notes;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gideon.notes.dto.NoteDto;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Imports notes from an upload of any size. Records are parsed one at a time and written
+ * in batches of {@link #BATCH_SIZE}, each batch in its own transaction, so neither the
+ * payload nor the created notes are ever held in memory as a whole. The upload is only
+ * read as fast as batches are written.
+ *
+ * <p>Invalid records are skipped and reported; they never abort the import. A batch the
+ * database rejects is split in halves and retried until the records that cannot be saved
+ * are singled out. Notes of batches already written stay imported if the upload breaks off.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NoteImporter {
+
+    static final int BATCH_SIZE = 500;
+    static final int MAX_REPORTED_ERRORS = 100;
+
+    private final NoteServiceInt noteService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    /**
+     * Reads one JSON object per line. Blank lines are ignored; errors are reported by line.
+     */
+    public NoteDto.ImportResponse importNdjson(Long userId, InputStream in) throws IOException {
+        Import run = new Import(userId);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+
+        long line = 0;
+        String text;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+            try {
+                run.add(line, objectMapper.readTree(text));
+            } catch (JsonProcessingException e) {
+                run.malformed(line, "Malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+        return run.finish();
+    }
+
+    /**
+     * Reads a JSON array of notes element by element; errors are reported by 1-based array
+     * position. A syntax error ends the import, since the rest of the array cannot be framed.
+     */
+    public NoteDto.ImportResponse importJsonArray(Long userId, InputStream in) throws IOException {
+        Import run = new Import(userId);
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Expected a JSON array of notes");
+            }
+            // Every element reaches add, so the element being read is always the next one
+            try {
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    run.add(run.processed + 1, parser.readValueAsTree());
+                }
+            } catch (JsonProcessingException e) {
+                run.malformed(run.processed + 1, "Malformed JSON, import stopped: " + e.getOriginalMessage());
+            }
+        }
+        return run.finish();
+    }
+
+    private final class Import {
+
+        private final Long userId;
+        private final List<NoteDto.NoteRequest> batch = new ArrayList<>(BATCH_SIZE);
+        private final List<Long> batchRecords = new ArrayList<>(BATCH_SIZE);
+        private final List<NoteDto.ImportError> errors = new ArrayList<>();
+        private long processed;
+        private long imported;
+        private long failed;
+
+        Import(Long userId) {
+            this.userId = userId;
+        }
+
+        void add(long record, JsonNode node) {
+            processed++;
+            NoteDto.NoteRequest request;
+            try {
+                request = objectMapper.treeToValue(node, NoteDto.NoteRequest.class);
+            } catch (JsonProcessingException e) {
+                reject(record, "Invalid note: " + e.getOriginalMessage());
+                return;
+            }
+
+            String violations = validator.validate(request).stream()
+                    .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                    .map(ConstraintViolation::getMessage)
+                    .collect(Collectors.joining("; "));
+            if (!violations.isEmpty()) {
+                reject(record, violations);
+                return;
+            }
+
+            batch.add(request);
+            batchRecords.add(record);
+            if (batch.size() == BATCH_SIZE) {
+                writeBatch();
+            }
+        }
+
+        void malformed(long record, String message) {
+            processed++;
+            reject(record, message);
+        }
+
+        void reject(long record, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(NoteDto.ImportError.builder().record(record).message(message).build());
+            }
+        }
+
+        NoteDto.ImportResponse finish() {
+            writeBatch();
+            log.debug("Import for user {} finished: {} imported, {} failed", userId, imported, failed);
+            return NoteDto.ImportResponse.builder()
+                    .processed(processed)
+                    .imported(imported)
+                    .failed(failed)
+                    .errors(errors)
+                    .errorsTruncated(failed > errors.size())
+                    .build();
+        }
+
+        private void writeBatch() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            write(batch, batchRecords);
+            log.debug("Import for user {}: {} processed, {} imported, {} failed",
+                    userId, processed, imported, failed);
+            batch.clear();
+            batchRecords.clear();
+        }
+
+        // Each call is its own transaction, so a failed write leaves nothing behind and its
+        // halves can be retried; a single bad record among n costs about 2 log2(n) writes
+        private void write(List<NoteDto.NoteRequest> requests, List<Long> records) {
+            try {
+                imported += noteService.createNotes(userId, requests).getCreated();
+            } catch (RuntimeException e) {
+                if (requests.size() == 1) {
+                    log.warn("Import record {} for user {} could not be saved", records.get(0), userId, e);
+                    reject(records.get(0), "Could not be saved");
+                    return;
+                }
+                int half = requests.size() / 2;
+                write(requests.subList(0, half), records.subList(0, half));
+                write(requests.subList(half, requests.size()), records.subList(half, records.size()));
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.gideon.notes.service.notes;
+
+import com.gideon.notes.entity.Note;
+import com.gideon.notes.entity.NoteTerm;
+import com.gideon.notes.repository.NoteTermRepository;
+import com.gideon.notes.repository.NotesRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+/**
+ * Brings the search and tag indexes up to date for notes written before those
+ * tables existed. Notes created since are indexed as they are saved.
+ * Each batch is committed and detached on its own, so memory use and transaction
+ * length do not grow with the table; the keyset on the note id picks up after the
+ * last committed batch.
+ */
+@Slf4j
+@Component
+public class NoteIndexBackfill {
+
+    private static final int BATCH_SIZE = 200;
+
+    private final NotesRepository noteRepo;
+    private final NoteTermRepository termRepo;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    public NoteIndexBackfill(NotesRepository noteRepo,
+                             NoteTermRepository termRepo,
+                             EntityManager entityManager,
+                             PlatformTransactionManager transactionManager) {
+        this.noteRepo = noteRepo;
+        this.termRepo = termRepo;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long terms = run(afterId -> termRepo.findUnindexedNotes(afterId, PageRequest.ofSize(BATCH_SIZE)),
+                note -> termRepo.saveAll(NoteTerm.of(note)));
+        long tags = run(afterId -> noteRepo.findNotesWithUnindexedTags(afterId, PageRequest.ofSize(BATCH_SIZE)),
+                note -> note.setTagList(note.getTagList()));
+
+        if (terms > 0 || tags > 0) {
+            log.info("Backfilled search terms for {} notes and tag index for {} notes", terms, tags);
+        }
+    }
+
+    // Returns how many notes were indexed
+    private long run(LongFunction<List<Note>> nextBatch, Consumer<Note> index) {
+        long total = 0;
+        long lastId = 0;
+        int batchSize;
+        do {
+            long afterId = lastId;
+            List<Note> notes = transactionTemplate.execute(status -> {
+                List<Note> batch = nextBatch.apply(afterId);
+                batch.forEach(index);
+                entityManager.flush();
+                entityManager.clear();
+                return batch;
+            });
+            batchSize = notes.size();
+            if (batchSize > 0) {
+                lastId = notes.get(batchSize - 1).getId();
+            }
+            total += batchSize;
+        } while (batchSize == BATCH_SIZE);
+        return total;
+    }
+}
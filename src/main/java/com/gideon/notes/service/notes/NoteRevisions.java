@@ -0,0 +1,87 @@
+package com.gideon.notes.service.notes;
+
+import com.gideon.notes.config.NoteRevisionProperties;
+import com.gideon.notes.entity.Note;
+import com.gideon.notes.entity.NoteRevision;
+import com.gideon.notes.repository.NoteRevisionRepository;
+import com.gideon.notes.utils.TextDelta;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Keeps one revision per note version written by a create or an edit. An edit is stored as
+ * a {@link TextDelta} against the previous revision, and a full snapshot is stored at least
+ * every {@code note-revisions.snapshot-interval} versions, so reading any revision replays
+ * a bounded number of deltas. Title and tags are short and kept whole in every revision.
+ */
+@Component
+@RequiredArgsConstructor
+public class NoteRevisions {
+
+    private final NoteRevisionRepository revisionRepo;
+    private final NoteRevisionProperties properties;
+
+    public record Revision(Long version, String title, String tags, String content, LocalDateTime createdAt) {
+    }
+
+    // The notes must have their ids and versions assigned, i.e. be persisted
+    public void recordCreated(List<Note> notes) {
+        revisionRepo.saveAll(notes.stream()
+                .map(note -> NoteRevision.builder()
+                        .noteId(note.getId())
+                        .version(note.getVersion())
+                        .baseVersion(note.getVersion())
+                        .snapshot(true)
+                        .title(note.getTitle())
+                        .tags(note.getTags())
+                        .content(note.getContent())
+                        .build())
+                .toList());
+    }
+
+    public void recordEdit(Long noteId, Long version, String title, String tags, String previousContent, String content) {
+        NoteRevision.NoteRevisionBuilder revision = NoteRevision.builder()
+                .noteId(noteId)
+                .version(version)
+                .title(title)
+                .tags(tags);
+
+        Optional<NoteRevisionRepository.RevisionHead> head = revisionRepo.findFirstByNoteIdOrderByVersionDesc(noteId);
+        // Notes written before revisions existed have nothing to chain a delta to
+        if (head.isEmpty() || version - head.get().getBaseVersion() >= properties.getSnapshotInterval()) {
+            revision.snapshot(true).baseVersion(version).content(content);
+        } else {
+            TextDelta delta = TextDelta.between(previousContent, content);
+            revision.baseVersion(head.get().getBaseVersion())
+                    .prefixLength(delta.prefixLength())
+                    .suffixLength(delta.suffixLength())
+                    .content(delta.inserted());
+        }
+        revisionRepo.save(revision.build());
+    }
+
+    public Page<NoteRevisionRepository.RevisionSummary> list(Long noteId, Pageable pageable) {
+        return revisionRepo.findSummariesByNoteId(noteId, pageable);
+    }
+
+    public Optional<Revision> find(Long noteId, Long version) {
+        List<NoteRevision> chain = revisionRepo.findChain(noteId, version);
+        if (chain.isEmpty()) {
+            return Optional.empty();
+        }
+
+        String content = null;
+        for (NoteRevision revision : chain) {
+            content = revision.applyTo(content);
+        }
+        NoteRevision target = chain.get(chain.size() - 1);
+        return Optional.of(new Revision(target.getVersion(), target.getTitle(), target.getTags(), content,
+                target.getCreatedAt()));
+    }
+}
@@ -0,0 +1,79 @@
+package com.gideon.notes.service.notes;
+
+import com.gideon.notes.entity.Note;
+import com.gideon.notes.entity.NoteTerm;
+import com.gideon.notes.repository.NoteTermRepository;
+import com.gideon.notes.utils.TextTokenizer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+@Component
+@RequiredArgsConstructor
+public class NoteSearchIndex {
+
+    private static final int MAX_QUERY_TERMS = 8;
+
+    private final NoteTermRepository termRepo;
+
+    /**
+     * Returns the ids of the user's active notes that contain every query term, best match
+     * first. Only the last word is prefix-matched, as it may still be being typed; the words
+     * before it must match whole terms.
+     */
+    @Transactional(readOnly = true)
+    public List<Long> search(Long userId, String query) {
+        List<String> tokens = TextTokenizer.tokenize(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        // Term -> whether it is matched as a prefix; a last word typed before as well is whole
+        Map<String, Boolean> prefixByTerm = new HashMap<>();
+        tokens.subList(0, tokens.size() - 1).forEach(term -> prefixByTerm.put(term, false));
+        prefixByTerm.putIfAbsent(tokens.get(tokens.size() - 1), true);
+
+        List<String> queryTerms = prefixByTerm.keySet().stream()
+                .sorted(Comparator.comparingInt(String::length).reversed())
+                .limit(MAX_QUERY_TERMS)
+                .toList();
+
+        Map<Long, Long> scores = null;
+        for (String term : queryTerms) {
+            // term + '\0' ends the range right after the term itself
+            String termEnd = term + (prefixByTerm.get(term) ? Character.MAX_VALUE : Character.MIN_VALUE);
+            Map<Long, Long> postings = new HashMap<>();
+            for (NoteTermRepository.Posting posting : termRepo.findPostings(userId, term, termEnd)) {
+                if (scores == null || scores.containsKey(posting.getNoteId())) {
+                    postings.put(posting.getNoteId(), posting.getScore());
+                }
+            }
+
+            if (scores != null) {
+                Map<Long, Long> previous = scores;
+                postings.replaceAll((noteId, score) -> score + previous.get(noteId));
+            }
+            scores = postings;
+
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.<Long, Long>comparingByKey().reversed()))
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+
+    @Transactional
+    public void reindex(Note note, Long userId, String title, String content) {
+        termRepo.deleteByNoteId(note.getId());
+        termRepo.saveAll(NoteTerm.of(note, userId, title, content));
+    }
+
+}
@@ -1,78 +1,147 @@
 package com.gideon.notes.service.notes;
 
 
+import com.gideon.notes.config.NoteSyncProperties;
 import com.gideon.notes.dto.NoteDto;
 import com.gideon.notes.entity.Note;
-import com.gideon.notes.entity.User;
+import com.gideon.notes.entity.NoteTag;
+import com.gideon.notes.enums.BulkItemStatus;
+import com.gideon.notes.enums.TagMatchMode;
+import com.gideon.notes.exception.ChangeTokenExpiredException;
 import com.gideon.notes.exception.EntityNotFoundException;
 import com.gideon.notes.exception.VersionConflictException;
+import com.gideon.notes.repository.NoteChange;
+import com.gideon.notes.repository.NoteCursor;
+import com.gideon.notes.repository.NoteRevisionRepository;
+import com.gideon.notes.repository.NoteSummaryView;
+import com.gideon.notes.repository.NoteTagRepository;
 import com.gideon.notes.repository.NotesRepository;
+import com.gideon.notes.repository.TagFilter;
 import com.gideon.notes.repository.UserRepository;
-import jakarta.persistence.OptimisticLockException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class NoteService implements NoteServiceInt {
 
+    // Each of these has a (user_id, <column>) index, see db/migration/V3
+    private static final List<String> SORTABLE_FIELDS = List.of("updatedAt", "createdAt", "title");
+
+    // Notes inserted between flushes of a batch create; keeps the persistence context small
+    private static final int BATCH_FLUSH_SIZE = 100;
+
     private final NotesRepository noteRepo;
     private final UserRepository userRepo;
+    private final NoteTagRepository tagRepo;
+    private final NoteSearchIndex searchIndex;
+    private final NoteRevisions revisions;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final NoteSyncProperties syncProperties;
 
     @Override
     @Transactional
-    public NoteDto.NoteResponse createNote(String email, NoteDto.NoteRequest request) {
-        User user = getUserByEmail(email);
-
+    public NoteDto.NoteResponse createNote(Long userId, NoteDto.NoteRequest request) {
         Note note = Note.builder()
                 .title(request.getTitle().trim())
                 .content(request.getContent().trim())
-                .user(user)
+                .user(userRepo.getReferenceById(userId))
                 .build();
 
         note.setTagList(request.getTags());
-        note = noteRepo.save(note);
+        // Sequence ids defer the insert to the flush, which also fills in the timestamps
+        note = noteRepo.saveAndFlush(note);
+        revisions.recordCreated(List.of(note));
 
         return toNoteResponse(note);
     }
 
 
+    @Override
+    @Transactional
+    public NoteDto.BatchNoteResponse createNotes(Long userId, List<NoteDto.NoteRequest> requests) {
+        List<NoteDto.NoteResponse> created = new ArrayList<>(requests.size());
+        List<Note> pending = new ArrayList<>(BATCH_FLUSH_SIZE);
+
+        for (NoteDto.NoteRequest request : requests) {
+            Note note = Note.builder()
+                    .title(request.getTitle().trim())
+                    .content(request.getContent().trim())
+                    .user(userRepo.getReferenceById(userId))
+                    .build();
+            note.setTagList(request.getTags());
+            pending.add(note);
+
+            if (pending.size() == BATCH_FLUSH_SIZE) {
+                flushBatch(pending, created);
+            }
+        }
+        flushBatch(pending, created);
+
+        return NoteDto.BatchNoteResponse.builder()
+                .notes(created)
+                .created(created.size())
+                .build();
+    }
+
+    // Ids come from the pooled sequences, so the notes, terms and tags of a chunk go out
+    // as a few JDBC batches (hibernate.jdbc.batch_size with order_inserts)
+    private void flushBatch(List<Note> pending, List<NoteDto.NoteResponse> created) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        noteRepo.saveAll(pending);
+        revisions.recordCreated(pending);
+        noteRepo.flush();
+        pending.forEach(note -> created.add(toNoteResponse(note)));
+        entityManager.clear();
+        pending.clear();
+    }
+
+
     @Override
     @Transactional(readOnly = true)
-    public NoteDto.PagedNotesResponse getNotes(String email,
+    public NoteDto.PagedNotesResponse getNotes(Long userId,
                                                String search,
                                                String tag,
+                                               String tagMode,
+                                               String excludeTag,
                                                int page,
                                                int size,
                                                String sortBy) {
-        User user = getUserByEmail(email);
-
-        if (sortBy == null || sortBy.trim().isEmpty()) {
-            sortBy = "updatedAt";
-        }
-
-        Sort sort = Sort.by(Sort.Direction.DESC, sortBy);
-        Pageable pageable = PageRequest.of(page, size, sort);
-
+        Pageable pageable = listPageable(page, size, sortBy);
+        TagFilter tagFilter = TagFilter.of(tag, tagMode, excludeTag);
         Page<Note> notePage;
 
 
-        if (search != null && !search.trim().isEmpty() && tag != null && !tag.trim().isEmpty()) {
-            notePage = noteRepo.searchNotesWithTag(user.getId(), search.trim(), tag.trim().toLowerCase(), pageable);
-        } else if (search != null && !search.trim().isEmpty()) {
-            notePage = noteRepo.searchNotes(user.getId(), search.trim(), pageable);
-        } else if (tag != null && !tag.trim().isEmpty()) {
-            notePage = noteRepo.findByUserIdAndTag(user.getId(), tag.trim().toLowerCase(), pageable);
+        if (search != null && !search.trim().isEmpty()) {
+            notePage = loadRanked(searchNoteIds(userId, search.trim(), tagFilter, pageable),
+                    ids -> noteRepo.findByUserIdAndIdIn(userId, ids), Note::getId);
+        } else if (!tagFilter.isEmpty()) {
+            notePage = noteRepo.findByUserIdAndTags(userId, tagFilter, pageable);
         } else {
-            notePage = noteRepo.findByUserId(user.getId(), pageable);
+            notePage = noteRepo.findByUserId(userId, pageable);
         }
 
         List<NoteDto.NoteResponse> notes = notePage.getContent().stream()
@@ -92,73 +161,503 @@ public class NoteService implements NoteServiceInt {
 
     @Override
     @Transactional(readOnly = true)
-    public NoteDto.NoteResponse getNoteById(String email, Long id) {
-        User user = getUserByEmail(email);
-        Note note = noteRepo.findByIdAndUserId(id, user.getId())
-                .orElseThrow(() -> new EntityNotFoundException("Note not found with id: " + id));
+    public NoteDto.PagedNoteSummariesResponse getNoteSummaries(Long userId,
+                                                               String search,
+                                                               String tag,
+                                                               String tagMode,
+                                                               String excludeTag,
+                                                               int page,
+                                                               int size,
+                                                               String sortBy) {
+        Pageable pageable = listPageable(page, size, sortBy);
+        TagFilter tagFilter = TagFilter.of(tag, tagMode, excludeTag);
+        Page<NoteSummaryView> summaryPage;
+
+        if (search != null && !search.trim().isEmpty()) {
+            summaryPage = loadRanked(searchNoteIds(userId, search.trim(), tagFilter, pageable),
+                    ids -> noteRepo.findSummariesByUserIdAndIdIn(userId, ids), NoteSummaryView::id);
+        } else {
+            summaryPage = noteRepo.findSummariesByUserIdAndTags(userId, tagFilter, pageable);
+        }
 
-        return toNoteResponse(note);
+        return NoteDto.PagedNoteSummariesResponse.builder()
+                .notes(summaryPage.getContent().stream().map(this::toNoteSummary).toList())
+                .page(summaryPage.getNumber())
+                .size(summaryPage.getSize())
+                .totalElements(summaryPage.getTotalElements())
+                .totalPages(summaryPage.getTotalPages())
+                .last(summaryPage.isLast())
+                .build();
     }
 
 
     @Override
-    @Transactional
-    public NoteDto.NoteResponse updateNote(String email, Long id, NoteDto.NoteRequest request, Long version) {
-        User user = getUserByEmail(email);
-        Note note = noteRepo.findByIdAndUserId(id, user.getId())
-                .orElseThrow(() -> new EntityNotFoundException("Note not found with id: " + id));
+    @Transactional(readOnly = true)
+    public NoteDto.PagedNotesResponse getTrash(Long userId, int page, int size) {
+        Page<Note> notePage = noteRepo.findTrashByUserId(userId, PageRequest.of(page, size));
+
+        return NoteDto.PagedNotesResponse.builder()
+                .notes(notePage.getContent().stream().map(this::toNoteResponse).toList())
+                .page(notePage.getNumber())
+                .size(notePage.getSize())
+                .totalElements(notePage.getTotalElements())
+                .totalPages(notePage.getTotalPages())
+                .last(notePage.isLast())
+                .build();
+    }
+
+
+    @Override
+    @Transactional(readOnly = true)
+    public NoteDto.CursorNotesResponse scrollNotes(Long userId,
+                                                   String after,
+                                                   int size,
+                                                   String tag,
+                                                   String tagMode,
+                                                   String excludeTag) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must not be less than one");
+        }
+
+        NoteCursor cursor = after == null || after.isBlank() ? null : NoteCursor.decode(after.trim());
+
+        Slice<Note> slice = noteRepo.findByUserIdAndTagsAfter(
+                userId, TagFilter.of(tag, tagMode, excludeTag), cursor, size);
+
+        List<Note> content = slice.getContent();
+        String nextCursor = slice.hasNext() ? NoteCursor.of(content.get(content.size() - 1)).encode() : null;
+
+        return NoteDto.CursorNotesResponse.builder()
+                .notes(content.stream().map(this::toNoteResponse).toList())
+                .size(slice.getSize())
+                .hasNext(slice.hasNext())
+                .nextCursor(nextCursor)
+                .build();
+    }
+
 
-        if (version != null && !note.getVersion().equals(version)) {
-            throw new VersionConflictException("Note was modified by another user");
+    /**
+     * Returns the notes whose change sequence is past {@code since}. Sequence values are
+     * taken when a row is written but become visible at commit, so a change is only handed
+     * out once it is older than the settle time; otherwise a slow transaction could commit
+     * a lower value behind a token a client already holds.
+     *
+     * <p>A page ends before the first change that has not settled. updated_at is taken
+     * before the row is written, so it does not follow the sequence: a later change may
+     * have settled while an earlier one has not, and handing out the later one would move
+     * the token past the earlier one for good.
+     *
+     * <p>A trashed note reaches clients as a change with deletedAt set; once the purge
+     * removes it, a token from before that change can no longer learn about it and is
+     * refused, so the client syncs again from the start.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public NoteDto.ChangesResponse getChanges(Long userId, String since, int limit) {
+        if (limit < 1 || limit > syncProperties.getMaxChanges()) {
+            throw new IllegalArgumentException("limit must be between 1 and " + syncProperties.getMaxChanges());
         }
 
-        note.setTitle(request.getTitle().trim());
-        note.setContent(request.getContent().trim());
-        note.setTagList(request.getTags());
+        long sinceSeq = parseChangeToken(since);
+        LocalDateTime settledBefore = LocalDateTime.now().minus(syncProperties.getSettleTime());
+        List<NoteChange> changed = noteRepo.findChangesSince(userId, sinceSeq, PageRequest.ofSize(limit + 1));
+        // Checked after the read: a purge committing in between is still caught here
+        if (since != null && !since.isBlank()
+                && noteRepo.findPurgedThroughByUserId(userId).orElse(0L) > sinceSeq) {
+            throw new ChangeTokenExpiredException("Change token is too old, sync again without a token");
+        }
+
+        int settled = 0;
+        while (settled < changed.size() && !changed.get(settled).note().getUpdatedAt().isAfter(settledBefore)) {
+            settled++;
+        }
+        boolean hasMore = settled > limit;
+        List<NoteChange> page = changed.subList(0, Math.min(settled, limit));
+        long nextSeq = page.isEmpty() ? sinceSeq : page.get(page.size() - 1).changeSeq();
+
+        return NoteDto.ChangesResponse.builder()
+                .changes(page.stream().map(change -> toNoteResponse(change.note())).toList())
+                .nextToken(String.valueOf(nextSeq))
+                .hasMore(hasMore)
+                .build();
+    }
 
+    private static long parseChangeToken(String token) {
+        if (token == null || token.isBlank()) {
+            return 0;
+        }
         try {
-            note = noteRepo.save(note);
-        } catch (OptimisticLockException e) {
-            throw new VersionConflictException("Note was modified by another user");
+            long seq = Long.parseLong(token.trim());
+            if (seq >= 0) {
+                return seq;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
         }
+        throw new IllegalArgumentException("Invalid change token");
+    }
+
+
+    /**
+     * Writes every note of the user to {@code out} as one JSON object per line. Rows are read
+     * through a forward-only cursor and detached chunk by chunk, and each chunk is flushed to
+     * the client, so memory use does not grow with the number of notes.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long exportNotes(Long userId, boolean includeDeleted, OutputStream out) throws IOException {
+        ObjectWriter noteWriter = objectMapper.writerFor(NoteDto.NoteResponse.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long exported = 0;
+
+        try (Stream<Note> notes = includeDeleted ? noteRepo.streamByUserId(userId) : noteRepo.streamActiveByUserId(userId);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            Iterator<Note> iterator = notes.iterator();
+            while (iterator.hasNext()) {
+                noteWriter.writeValue(generator, toNoteResponse(iterator.next()));
+                generator.writeRaw('\n');
+
+                if (++exported % NotesRepository.EXPORT_FETCH_SIZE == 0) {
+                    entityManager.clear();
+                    generator.flush();
+                }
+            }
+        }
+        return exported;
+    }
+
+
+    @Override
+    @Transactional(readOnly = true)
+    public NoteDto.NoteResponse getNoteById(Long userId, Long id) {
+        Note note = noteRepo.findByIdAndUserId(id, userId)
+                .orElseThrow(() -> new EntityNotFoundException("Note not found with id: " + id));
 
         return toNoteResponse(note);
     }
 
 
     @Override
-    @Transactional
-    public void deleteNote(String email, Long id) {
-        User user = getUserByEmail(email);
-        Note note = noteRepo.findByIdAndUserId(id, user.getId())
+    @Transactional(readOnly = true)
+    public Long getNoteVersion(Long userId, Long id) {
+        return noteRepo.findVersionByIdAndUserId(id, userId)
                 .orElseThrow(() -> new EntityNotFoundException("Note not found with id: " + id));
+    }
+
 
-        note.softDelete();
-        noteRepo.save(note);
+    /**
+     * Returns the change sequence of the user's latest note write, or 0 without notes. Every
+     * create, edit, delete, restore and purge moves it forward, so it identifies the state
+     * of all of the user's listings at once.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long getLastChange(Long userId) {
+        return noteRepo.findLastChangeSeqByUserId(userId);
     }
 
 
+    @Override
+    @Transactional(readOnly = true)
+    public NoteDto.PagedRevisionsResponse getRevisions(Long userId, Long id, int page, int size) {
+        requireNote(userId, id);
+        Page<NoteRevisionRepository.RevisionSummary> revisionPage = revisions.list(id, PageRequest.of(page, size));
+
+        return NoteDto.PagedRevisionsResponse.builder()
+                .revisions(revisionPage.getContent().stream()
+                        .map(revision -> NoteDto.NoteRevisionSummary.builder()
+                                .version(revision.getVersion())
+                                .title(revision.getTitle())
+                                .tags(Note.parseTags(revision.getTags()))
+                                .createdAt(revision.getCreatedAt())
+                                .build())
+                        .toList())
+                .page(revisionPage.getNumber())
+                .size(revisionPage.getSize())
+                .totalElements(revisionPage.getTotalElements())
+                .totalPages(revisionPage.getTotalPages())
+                .last(revisionPage.isLast())
+                .build();
+    }
+
+
+    @Override
+    @Transactional(readOnly = true)
+    public NoteDto.NoteRevisionResponse getRevision(Long userId, Long id, Long version) {
+        requireNote(userId, id);
+        NoteRevisions.Revision revision = revisions.find(id, version)
+                .orElseThrow(() -> new EntityNotFoundException("Revision " + version + " not found for note " + id));
+
+        return NoteDto.NoteRevisionResponse.builder()
+                .noteId(id)
+                .version(revision.version())
+                .title(revision.title())
+                .content(revision.content())
+                .tags(Note.parseTags(revision.tags()))
+                .createdAt(revision.createdAt())
+                .build();
+    }
+
+    private void requireNote(Long userId, Long id) {
+        if (!noteRepo.existsByIdAndUserId(id, userId)) {
+            throw new EntityNotFoundException("Note not found with id: " + id);
+        }
+    }
+
+
+    /**
+     * Writes the edit with a single conditional UPDATE instead of loading the note first.
+     * Only when no row matched is the note looked up again, to tell a missing note from a
+     * stale version. The same statement returns the replaced title, content and tags: tag
+     * rows are written only for tags that were added or removed, terms only when the title
+     * or content changed, and the replaced content becomes the revision delta.
+     */
     @Override
     @Transactional
-    public NoteDto.NoteResponse restoreNote(String email, Long id) {
-        User user = getUserByEmail(email);
+    public NoteDto.NoteResponse updateNote(Long userId, Long id, NoteDto.NoteRequest request, Long version) {
+        String title = request.getTitle().trim();
+        String content = request.getContent().trim();
+        List<String> tags = Note.normalizeTagList(request.getTags());
+
+        LocalDateTime now = LocalDateTime.now();
+        NotesRepository.PreviousNote previous = noteRepo.updateContent(
+                        id, userId, version, title, content, Note.joinTags(tags), now)
+                .orElseThrow(() -> noteRepo.existsByIdAndUserId(id, userId)
+                        ? new VersionConflictException("Note was modified by another user")
+                        : new EntityNotFoundException("Note not found with id: " + id));
+
+        // Like the bulk updates the statement bypasses the persistence context, so drop any
+        // copy of the note loaded earlier in this transaction
+        entityManager.clear();
+        Note note = entityManager.getReference(Note.class, id);
+        List<String> previousTags = Note.parseTags(previous.getTags());
+        List<String> removedTags = previousTags.stream().filter(tag -> !tags.contains(tag)).toList();
+        if (!removedTags.isEmpty()) {
+            tagRepo.deleteByNoteIdAndTagIn(id, removedTags);
+        }
+        tagRepo.saveAll(tags.stream()
+                .filter(tag -> !previousTags.contains(tag))
+                .map(tag -> NoteTag.builder().note(note).userId(userId).tag(tag).build())
+                .toList());
+        if (!title.equals(previous.getTitle()) || !content.equals(previous.getContent())) {
+            searchIndex.reindex(note, userId, title, content);
+        }
+        long newVersion = previous.getVersion() + 1;
+        revisions.recordEdit(id, newVersion, title, Note.joinTags(tags), previous.getContent(), content);
+
+        return NoteDto.NoteResponse.builder()
+                .id(id)
+                .title(title)
+                .content(content)
+                .tags(tags)
+                .version(newVersion)
+                .createdAt(previous.getCreatedAt())
+                .updatedAt(now)
+                .build();
+    }
+
 
-        Note note = noteRepo.findDeletedNoteByIdAndUserId(id, user.getId())
+    @Override
+    @Transactional
+    public void deleteNote(Long userId, Long id) {
+        if (noteRepo.softDeleteByUserIdAndIdIn(userId, List.of(id), LocalDateTime.now()) == 0) {
+            throw new EntityNotFoundException("Note not found with id: " + id);
+        }
+    }
+
+
+    @Override
+    @Transactional
+    public NoteDto.NoteResponse restoreNote(Long userId, Long id) {
+        NotesRepository.RestoredNote restored = noteRepo.restore(id, userId, LocalDateTime.now())
                 .orElseThrow(() -> new EntityNotFoundException("Deleted note not found with id: " + id));
+        // The statement bypasses the persistence context, see updateNote
+        entityManager.clear();
 
-        note.restore();
-        note = noteRepo.save(note);
+        return NoteDto.NoteResponse.builder()
+                .id(id)
+                .title(restored.getTitle())
+                .content(restored.getContent())
+                .tags(Note.parseTags(restored.getTags()))
+                .version(restored.getVersion())
+                .createdAt(restored.getCreatedAt())
+                .updatedAt(restored.getUpdatedAt())
+                .deletedAt(restored.getDeletedAt())
+                .build();
+    }
 
-        return toNoteResponse(note);
+
+    @Override
+    @Transactional
+    public NoteDto.BulkNotesResponse deleteNotes(Long userId, List<NoteDto.BulkNoteItem> items) {
+        return applyBulk(userId, items, false,
+                ids -> noteRepo.softDeleteByUserIdAndIdIn(userId, ids, LocalDateTime.now()));
     }
 
 
-    private User getUserByEmail(String email) {
-        return userRepo.findByEmail(email)
-                .orElseThrow(() -> new EntityNotFoundException("User not found: " + email));
+    @Override
+    @Transactional
+    public NoteDto.BulkNotesResponse restoreNotes(Long userId, List<NoteDto.BulkNoteItem> items) {
+        return applyBulk(userId, items, true,
+                ids -> noteRepo.restoreByUserIdAndIdIn(userId, ids, LocalDateTime.now()));
     }
 
 
+    @Override
+    @Transactional
+    public NoteDto.BulkNotesResponse retagNotes(Long userId,
+                                                List<NoteDto.BulkNoteItem> items,
+                                                List<String> add,
+                                                List<String> remove) {
+        Map<Long, Long> expectedVersions = expectedVersions(items);
+        Map<Long, Note> notes = noteRepo.lockActiveByUserIdAndIdIn(userId, expectedVersions.keySet()).stream()
+                .collect(Collectors.toMap(Note::getId, Function.identity()));
+
+        Set<String> removed = normalizeTags(remove);
+        Set<Long> retagged = new HashSet<>();
+        expectedVersions.forEach((id, expected) -> {
+            Note note = notes.get(id);
+            if (note != null && (expected == null || expected.equals(note.getVersion()))) {
+                List<String> tags = new ArrayList<>(note.getTagList());
+                tags.removeIf(removed::contains);
+                tags.addAll(add == null ? List.of() : add);
+                note.setTagList(tags);
+                retagged.add(id);
+            }
+        });
+        // Changed notes and their tag rows go out as JDBC batches; versions are final after this
+        noteRepo.flush();
+
+        return bulkResponse(expectedVersions, id -> {
+            Note note = notes.get(id);
+            if (note == null) {
+                return bulkResult(id, BulkItemStatus.NOT_FOUND, null);
+            }
+            return bulkResult(id, retagged.contains(id) ? BulkItemStatus.UPDATED : BulkItemStatus.VERSION_CONFLICT,
+                    note.getVersion());
+        });
+    }
+
+
+    /**
+     * Checks each item against the locked row state and runs a single set-based update for
+     * the notes that passed. The update bumps each version by one, so the new versions are
+     * known without reading the rows back.
+     */
+    private NoteDto.BulkNotesResponse applyBulk(Long userId,
+                                                List<NoteDto.BulkNoteItem> items,
+                                                boolean deleted,
+                                                Function<Set<Long>, Integer> update) {
+        Map<Long, Long> expectedVersions = expectedVersions(items);
+        Map<Long, NotesRepository.NoteState> states = noteRepo.lockStatesByUserIdAndIdIn(userId, expectedVersions.keySet())
+                .stream()
+                .collect(Collectors.toMap(NotesRepository.NoteState::getId, Function.identity()));
+
+        Set<Long> eligible = new HashSet<>();
+        expectedVersions.forEach((id, expected) -> {
+            NotesRepository.NoteState state = states.get(id);
+            if (state != null && state.isDeleted() == deleted
+                    && (expected == null || expected.equals(state.getVersion()))) {
+                eligible.add(id);
+            }
+        });
+        if (!eligible.isEmpty()) {
+            update.apply(eligible);
+        }
+
+        return bulkResponse(expectedVersions, id -> {
+            NotesRepository.NoteState state = states.get(id);
+            if (state == null || state.isDeleted() != deleted) {
+                return bulkResult(id, BulkItemStatus.NOT_FOUND, null);
+            }
+            return eligible.contains(id)
+                    ? bulkResult(id, BulkItemStatus.UPDATED, state.getVersion() + 1)
+                    : bulkResult(id, BulkItemStatus.VERSION_CONFLICT, state.getVersion());
+        });
+    }
+
+    // Distinct ids in request order; the first occurrence of a repeated id wins
+    private static Map<Long, Long> expectedVersions(List<NoteDto.BulkNoteItem> items) {
+        Map<Long, Long> versions = new LinkedHashMap<>();
+        items.forEach(item -> {
+            if (!versions.containsKey(item.getId())) {
+                versions.put(item.getId(), item.getVersion());
+            }
+        });
+        return versions;
+    }
+
+    private static Set<String> normalizeTags(List<String> tags) {
+        return tags == null ? Set.of() : tags.stream()
+                .map(tag -> tag.trim().toLowerCase())
+                .collect(Collectors.toSet());
+    }
+
+    private static NoteDto.BulkNotesResponse bulkResponse(Map<Long, Long> expectedVersions,
+                                                          Function<Long, NoteDto.BulkItemResult> resultOf) {
+        List<NoteDto.BulkItemResult> results = expectedVersions.keySet().stream().map(resultOf).toList();
+        int updated = (int) results.stream().filter(result -> result.getStatus() == BulkItemStatus.UPDATED).count();
+
+        return NoteDto.BulkNotesResponse.builder()
+                .results(results)
+                .updated(updated)
+                .failed(results.size() - updated)
+                .build();
+    }
+
+    private static NoteDto.BulkItemResult bulkResult(Long id, BulkItemStatus status, Long version) {
+        return NoteDto.BulkItemResult.builder()
+                .id(id)
+                .status(status)
+                .version(version)
+                .build();
+    }
+
+
+    private Pageable listPageable(int page, int size, String sortBy) {
+        if (sortBy == null || sortBy.trim().isEmpty()) {
+            sortBy = "updatedAt";
+        }
+        if (!SORTABLE_FIELDS.contains(sortBy)) {
+            throw new IllegalArgumentException("sortBy must be one of: " + String.join(", ", SORTABLE_FIELDS));
+        }
+        return PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, sortBy));
+    }
+
+
+    private Page<Long> searchNoteIds(Long userId, String search, TagFilter tagFilter, Pageable pageable) {
+        List<Long> rankedIds = searchIndex.search(userId, search);
+        if (!tagFilter.tags().isEmpty() && !rankedIds.isEmpty()) {
+            Set<Long> taggedIds = new HashSet<>(tagFilter.mode() == TagMatchMode.ALL
+                    ? tagRepo.findNoteIdsWithAllTags(userId, tagFilter.tags(), tagFilter.tags().size())
+                    : tagRepo.findNoteIdsWithAnyTag(userId, tagFilter.tags()));
+            rankedIds = rankedIds.stream().filter(taggedIds::contains).toList();
+        }
+        if (!tagFilter.excludedTags().isEmpty() && !rankedIds.isEmpty()) {
+            Set<Long> excludedIds = new HashSet<>(tagRepo.findNoteIdsWithAnyTag(userId, tagFilter.excludedTags()));
+            rankedIds = rankedIds.stream().filter(id -> !excludedIds.contains(id)).toList();
+        }
+
+        int from = (int) Math.min(pageable.getOffset(), rankedIds.size());
+        int to = Math.min(from + pageable.getPageSize(), rankedIds.size());
+        return new PageImpl<>(rankedIds.subList(from, to), pageable, rankedIds.size());
+    }
+
+
+    // Loads one page of ranked ids and puts the rows back into rank order
+    private <T> Page<T> loadRanked(Page<Long> idPage, Function<List<Long>, List<T>> loader, Function<T, Long> idOf) {
+        Map<Long, T> rowsById = loader.apply(idPage.getContent()).stream()
+                .collect(Collectors.toMap(idOf, Function.identity()));
+        List<T> content = idPage.getContent().stream()
+                .map(rowsById::get)
+                .filter(Objects::nonNull)
+                .toList();
+
+        return new PageImpl<>(content, idPage.getPageable(), idPage.getTotalElements());
+    }
+
 
     private NoteDto.NoteResponse toNoteResponse(Note note) {
         return NoteDto.NoteResponse.builder()
@@ -172,4 +671,17 @@ public class NoteService implements NoteServiceInt {
                 .deletedAt(note.getDeletedAt())
                 .build();
     }
+
+    private NoteDto.NoteSummary toNoteSummary(NoteSummaryView summary) {
+        return NoteDto.NoteSummary.builder()
+                .id(summary.id())
+                .title(summary.title())
+                .snippet(summary.snippet())
+                .truncated(summary.truncated())
+                .tags(Note.parseTags(summary.tags()))
+                .version(summary.version())
+                .createdAt(summary.createdAt())
+                .updatedAt(summary.updatedAt())
+                .build();
+    }
 }
\ No newline at end of file
@@ -2,11 +2,28 @@ package com.gideon.notes.service.notes;
 
 import com.gideon.notes.dto.NoteDto;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
 public interface NoteServiceInt {
-    NoteDto.NoteResponse createNote(String email, NoteDto.NoteRequest request);
-    NoteDto.PagedNotesResponse getNotes(String email, String search, String tag, int page, int size, String sortBy);
-    NoteDto.NoteResponse getNoteById(String email, Long id);
-    NoteDto.NoteResponse updateNote(String email, Long id, NoteDto.NoteRequest request, Long version);
-    void deleteNote(String username, Long id);
-    NoteDto.NoteResponse restoreNote(String email, Long id);
+    NoteDto.NoteResponse createNote(Long userId, NoteDto.NoteRequest request);
+    NoteDto.BatchNoteResponse createNotes(Long userId, List<NoteDto.NoteRequest> requests);
+    NoteDto.PagedNotesResponse getNotes(Long userId, String search, String tag, String tagMode, String excludeTag, int page, int size, String sortBy);
+    NoteDto.PagedNoteSummariesResponse getNoteSummaries(Long userId, String search, String tag, String tagMode, String excludeTag, int page, int size, String sortBy);
+    NoteDto.PagedNotesResponse getTrash(Long userId, int page, int size);
+    NoteDto.CursorNotesResponse scrollNotes(Long userId, String after, int size, String tag, String tagMode, String excludeTag);
+    NoteDto.ChangesResponse getChanges(Long userId, String since, int limit);
+    long exportNotes(Long userId, boolean includeDeleted, OutputStream out) throws IOException;
+    NoteDto.NoteResponse getNoteById(Long userId, Long id);
+    Long getNoteVersion(Long userId, Long id);
+    long getLastChange(Long userId);
+    NoteDto.PagedRevisionsResponse getRevisions(Long userId, Long id, int page, int size);
+    NoteDto.NoteRevisionResponse getRevision(Long userId, Long id, Long version);
+    NoteDto.NoteResponse updateNote(Long userId, Long id, NoteDto.NoteRequest request, Long version);
+    void deleteNote(Long userId, Long id);
+    NoteDto.NoteResponse restoreNote(Long userId, Long id);
+    NoteDto.BulkNotesResponse deleteNotes(Long userId, List<NoteDto.BulkNoteItem> items);
+    NoteDto.BulkNotesResponse restoreNotes(Long userId, List<NoteDto.BulkNoteItem> items);
+    NoteDto.BulkNotesResponse retagNotes(Long userId, List<NoteDto.BulkNoteItem> items, List<String> add, List<String> remove);
 }
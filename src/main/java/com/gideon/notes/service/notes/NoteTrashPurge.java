@@ -0,0 +1,118 @@
+package com.gideon.notes.service.notes;
+
+import com.gideon.notes.config.TrashPurgeProperties;
+import com.gideon.notes.repository.NoteTagRepository;
+import com.gideon.notes.repository.NoteTermRepository;
+import com.gideon.notes.repository.NotesRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hard-deletes notes that have been in the trash for longer than the retention. Notes are
+ * taken oldest deletion first in batches, each batch locked, deleted together with its
+ * search terms and tags (revisions follow through ON DELETE CASCADE), and committed on
+ * its own, with a pause before the next batch. Each batch also advances the owners'
+ * note_purges rows, which send change tokens from before the purge back to a full sync
+ * and keep listing ETags moving forward.
+ * A restore racing the purge either wins before the batch locks the note or finds it gone.
+ */
+@Slf4j
+@Component
+public class NoteTrashPurge {
+
+    private final NotesRepository noteRepo;
+    private final NoteTermRepository termRepo;
+    private final NoteTagRepository tagRepo;
+    private final TrashPurgeProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter purged;
+    private final Timer batchTime;
+    private final AtomicInteger running = new AtomicInteger();
+
+    public NoteTrashPurge(NotesRepository noteRepo,
+                          NoteTermRepository termRepo,
+                          NoteTagRepository tagRepo,
+                          TrashPurgeProperties properties,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry) {
+        this.noteRepo = noteRepo;
+        this.termRepo = termRepo;
+        this.tagRepo = tagRepo;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        this.purged = Counter.builder("notes.trash.purged")
+                .description("Soft-deleted notes removed after the retention period")
+                .register(meterRegistry);
+        this.batchTime = Timer.builder("notes.trash.purge.batch")
+                .description("Time to delete one batch of expired notes")
+                .register(meterRegistry);
+        Gauge.builder("notes.trash.purge.running", running, AtomicInteger::get)
+                .description("1 while a purge run is in progress")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs until no note older than the retention is left, and returns how many notes were
+     * deleted. Stops early when the thread is interrupted.
+     */
+    public long purge() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getRetention());
+        // Keyset over (deleted_at, id), starting before any possible deletion time
+        LocalDateTime afterDeletedAt = LocalDateTime.of(1970, 1, 1, 0, 0);
+        long afterId = 0;
+        long total = 0;
+
+        running.set(1);
+        try {
+            while (true) {
+                List<NotesRepository.TrashedNote> batch = purgeBatch(cutoff, afterDeletedAt, afterId);
+                total += batch.size();
+                if (batch.size() < properties.getBatchSize()) {
+                    break;
+                }
+                NotesRepository.TrashedNote last = batch.get(batch.size() - 1);
+                afterDeletedAt = last.getDeletedAt();
+                afterId = last.getId();
+
+                Thread.sleep(properties.getBatchPause().toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("Trash purge interrupted after {} notes", total);
+        } finally {
+            running.set(0);
+        }
+
+        if (total > 0) {
+            log.info("Purged {} notes deleted before {}", total, cutoff);
+        }
+        return total;
+    }
+
+    private List<NotesRepository.TrashedNote> purgeBatch(LocalDateTime cutoff, LocalDateTime afterDeletedAt, long afterId) {
+        return batchTime.record(() -> transactionTemplate.execute(status -> {
+            List<NotesRepository.TrashedNote> batch = noteRepo.lockTrashBatch(
+                    cutoff, afterDeletedAt, afterId, properties.getBatchSize());
+            if (!batch.isEmpty()) {
+                List<Long> ids = batch.stream().map(NotesRepository.TrashedNote::getId).toList();
+                termRepo.deleteByNoteIdIn(ids);
+                tagRepo.deleteByNoteIdIn(ids);
+                noteRepo.recordPurge(ids);
+                noteRepo.purgeByIdIn(ids);
+                purged.increment(ids.size());
+            }
+            return batch;
+        }));
+    }
+}
@@ -24,8 +24,11 @@ public class RateLimitInterceptor implements HandlerInterceptor {
         RateLimitService.RateLimitType rateLimitType = determineRateLimitType(request.getRequestURI(), request.getMethod());
 
         Bucket bucket = rateLimitService.resolveBucket(key, rateLimitType);
-        ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(1);
 
+        // One call yields both the decision and the header values, taken under the same lock
+        // (or, with a shared store, in the same round trip), so the remaining count matches
+        // this request's consumption
+        ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(1);
         if (probe.isConsumed()) {
             response.addHeader("X-Rate-Limit-Remaining", String.valueOf(probe.getRemainingTokens()));
             return true;
@@ -64,6 +67,9 @@ public class RateLimitInterceptor implements HandlerInterceptor {
         }
 
         if (uri.startsWith("/api/notes")) {
+            if (uri.startsWith("/api/notes/bulk/")) {
+                return RateLimitService.RateLimitType.NOTES_UPDATE;
+            }
             if ("POST".equals(method) && !uri.contains("/restore")) {
                 return RateLimitService.RateLimitType.NOTES_CREATE;
             }
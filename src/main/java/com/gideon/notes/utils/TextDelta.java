@@ -0,0 +1,29 @@
+package com.gideon.notes.utils;
+
+/**
+ * The change between two texts as a single replaced span: keep the first
+ * {@code prefixLength} and the last {@code suffixLength} characters of the old text and put
+ * {@code inserted} in between. A typical edit touches one place in a note, so the delta is
+ * about the size of the edit however long the note is.
+ */
+public record TextDelta(int prefixLength, int suffixLength, String inserted) {
+
+    public static TextDelta between(String from, String to) {
+        int max = Math.min(from.length(), to.length());
+
+        int prefix = 0;
+        while (prefix < max && from.charAt(prefix) == to.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < max - prefix
+                && from.charAt(from.length() - 1 - suffix) == to.charAt(to.length() - 1 - suffix)) {
+            suffix++;
+        }
+        return new TextDelta(prefix, suffix, to.substring(prefix, to.length() - suffix));
+    }
+
+    public String applyTo(String from) {
+        return from.substring(0, prefixLength) + inserted + from.substring(from.length() - suffixLength);
+    }
+}
@@ -0,0 +1,13 @@
+-- The trash purge removes rows from notes, so neither /api/notes/changes nor the listing
+-- ETags (the highest change_seq of the user's notes) can see it. Every purge batch records
+-- per user the highest change_seq among the notes it removed (purged_through) and takes a
+-- fresh value from note_change_seq (change_seq). A change token below purged_through may
+-- still hold a removed note and has to resync; change_seq keeps the last change of the
+-- user moving forward when the purged note held it.
+
+CREATE TABLE IF NOT EXISTS note_purges (
+    user_id        BIGINT NOT NULL PRIMARY KEY,
+    purged_through BIGINT NOT NULL,
+    change_seq     BIGINT NOT NULL,
+    CONSTRAINT fk_note_purges_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
+);
@@ -0,0 +1,25 @@
+-- Full-text postings and normalized tags. IF NOT EXISTS because databases that ran
+-- with ddl-auto before migrations existed may already have these tables.
+
+CREATE TABLE IF NOT EXISTS note_terms (
+    id      BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    note_id BIGINT      NOT NULL,
+    user_id BIGINT      NOT NULL,
+    term    VARCHAR(64) NOT NULL,
+    weight  INTEGER     NOT NULL,
+    CONSTRAINT fk_note_terms_note FOREIGN KEY (note_id) REFERENCES notes (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_note_terms_user_term ON note_terms (user_id, term, note_id);
+CREATE INDEX IF NOT EXISTS idx_note_terms_note ON note_terms (note_id);
+
+CREATE TABLE IF NOT EXISTS note_tags (
+    id      BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    note_id BIGINT       NOT NULL,
+    user_id BIGINT       NOT NULL,
+    tag     VARCHAR(255) NOT NULL,
+    CONSTRAINT fk_note_tags_note FOREIGN KEY (note_id) REFERENCES notes (id),
+    CONSTRAINT uk_note_tags_note_tag UNIQUE (note_id, tag)
+);
+
+CREATE INDEX IF NOT EXISTS idx_note_tags_user_tag ON note_tags (user_id, tag, note_id);
@@ -0,0 +1,15 @@
+-- One index per access path in NotesRepository. Lookups by (id, user_id) are served
+-- by the primary key; listings are always scoped to a user and sorted by one of the
+-- columns accepted by the sortBy parameter.
+
+-- Default listing (updatedAt DESC) and the keyset seek of /api/notes/scroll
+CREATE INDEX IF NOT EXISTS idx_notes_user_updated ON notes (user_id, updated_at, id);
+
+-- sortBy=createdAt
+CREATE INDEX IF NOT EXISTS idx_notes_user_created ON notes (user_id, created_at, id);
+
+-- sortBy=title
+CREATE INDEX IF NOT EXISTS idx_notes_user_title ON notes (user_id, title, id);
+
+-- Trash lookups (deleted_at IS NOT NULL)
+CREATE INDEX IF NOT EXISTS idx_notes_user_deleted ON notes (user_id, deleted_at);
@@ -0,0 +1,11 @@
+-- Shared token buckets for rate-limit.store=jdbc. The state column holds the serialized
+-- bucket4j state and is only ever replaced by a compare-and-swap on version; expires_at
+-- is when the bucket would be full again, after which the row carries no information.
+CREATE TABLE IF NOT EXISTS rate_limit_buckets (
+    bucket_key VARCHAR(255) NOT NULL PRIMARY KEY,
+    state VARBINARY(4096) NOT NULL,
+    version BIGINT NOT NULL,
+    expires_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_rate_limit_buckets_expires ON rate_limit_buckets (expires_at);
@@ -0,0 +1,13 @@
+-- Notes and their terms and tags take ids from sequences instead of identity columns so
+-- Hibernate can assign ids before inserting and send the inserts as JDBC batches. Each
+-- sequence hands out blocks of 50 (allocationSize in the entities) and starts past the
+-- highest existing id; Hibernate treats a fetched value as the top of its block.
+
+CREATE SEQUENCE IF NOT EXISTS notes_seq INCREMENT BY 50;
+ALTER SEQUENCE notes_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM notes);
+
+CREATE SEQUENCE IF NOT EXISTS note_terms_seq INCREMENT BY 50;
+ALTER SEQUENCE note_terms_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM note_terms);
+
+CREATE SEQUENCE IF NOT EXISTS note_tags_seq INCREMENT BY 50;
+ALTER SEQUENCE note_tags_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM note_tags);
@@ -0,0 +1,16 @@
+-- Every insert and every update that changes a note takes a fresh value from
+-- note_change_seq, so /api/notes/changes can return what changed after a token with a
+-- range scan on (user_id, change_seq). ON UPDATE only fires when a statement does not set
+-- change_seq itself and actually changes the row, which is why the entity maps the column
+-- read-only.
+
+CREATE SEQUENCE IF NOT EXISTS note_change_seq;
+
+ALTER TABLE notes ADD COLUMN IF NOT EXISTS change_seq BIGINT;
+UPDATE notes SET change_seq = NEXT VALUE FOR note_change_seq WHERE change_seq IS NULL;
+
+ALTER TABLE notes ALTER COLUMN change_seq SET NOT NULL;
+ALTER TABLE notes ALTER COLUMN change_seq SET DEFAULT NEXT VALUE FOR note_change_seq;
+ALTER TABLE notes ALTER COLUMN change_seq SET ON UPDATE NEXT VALUE FOR note_change_seq;
+
+CREATE INDEX IF NOT EXISTS idx_notes_user_change ON notes (user_id, change_seq);
@@ -0,0 +1,17 @@
+-- Listings only ever show active notes (deleted_at IS NULL) or only the trash, so the
+-- listing indexes lead with (user_id, deleted_at): an active listing scans the live rows
+-- of one user and never steps over trashed ones. H2 has no partial indexes.
+
+-- Default listing (updatedAt DESC) and the keyset seek of /api/notes/scroll
+DROP INDEX IF EXISTS idx_notes_user_updated;
+CREATE INDEX IF NOT EXISTS idx_notes_user_active_updated ON notes (user_id, deleted_at, updated_at, id);
+
+-- sortBy=createdAt; idx_notes_user_created stays for exports including the trash
+CREATE INDEX IF NOT EXISTS idx_notes_user_active_created ON notes (user_id, deleted_at, created_at, id);
+
+-- sortBy=title
+DROP INDEX IF EXISTS idx_notes_user_title;
+CREATE INDEX IF NOT EXISTS idx_notes_user_active_title ON notes (user_id, deleted_at, title, id);
+
+-- Trash listing (deleted_at DESC) and trashed ids for search are served by the indexes above
+DROP INDEX IF EXISTS idx_notes_user_deleted;
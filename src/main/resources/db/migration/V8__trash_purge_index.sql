@@ -0,0 +1,3 @@
+-- The trash purge walks expired notes of all users in (deleted_at, id) order; active
+-- notes (deleted_at IS NULL) sit before the range it scans.
+CREATE INDEX IF NOT EXISTS idx_notes_trash ON notes (deleted_at, id);
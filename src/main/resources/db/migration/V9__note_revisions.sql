@@ -0,0 +1,23 @@
+-- One row per note version written by a create or an edit. Most rows hold the edit as a
+-- delta against the previous revision (keep prefix_length leading and suffix_length
+-- trailing characters, put content in between); every few versions a full snapshot
+-- (snapshot = TRUE, content is the whole text) bounds how many deltas a read replays.
+-- base_version is the snapshot a revision is rebuilt from. Revisions go with their note.
+
+CREATE SEQUENCE IF NOT EXISTS note_revisions_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS note_revisions (
+    id            BIGINT       NOT NULL PRIMARY KEY,
+    note_id       BIGINT       NOT NULL,
+    version       BIGINT       NOT NULL,
+    base_version  BIGINT       NOT NULL,
+    snapshot      BOOLEAN      NOT NULL,
+    title         VARCHAR(255) NOT NULL,
+    tags          VARCHAR(1000),
+    prefix_length INTEGER      NOT NULL,
+    suffix_length INTEGER      NOT NULL,
+    content       TEXT         NOT NULL,
+    created_at    TIMESTAMP    NOT NULL,
+    CONSTRAINT fk_note_revisions_note FOREIGN KEY (note_id) REFERENCES notes (id) ON DELETE CASCADE,
+    CONSTRAINT uk_note_revisions_note_version UNIQUE (note_id, version)
+);
@@ -0,0 +1,107 @@
+package com.gideon.notes.benchmark;
+
+import com.gideon.notes.config.JwtProperties;
+import com.gideon.notes.security.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of authenticating one request: the old path (key decoded and parser built per call,
+ * token parsed for the username, the validity check and the expiry check) against a single
+ * {@link JwtService#verify}, both for a token seen for the first time, which is parsed once
+ * with the prebuilt parser, and for a repeated token served from the verified-token cache.
+ *
+ * <p>Run with {@code ./mvnw test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.gideon.notes.benchmark.JwtVerificationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "c2VjcmV0LWtleS1mb3ItYmVuY2htYXJrcy1vbmx5LTEyMzQ1Njc4OTBhYmNkZWY=";
+
+    // Distinct tokens cycled through by verifyUncached, so none is repeated while still cached
+    private static final int UNCACHED_TOKENS = 4_096;
+
+    private JwtService jwtService;
+    private JwtService uncachedJwtService;
+    private String token;
+    private String[] uncachedTokens;
+    private int nextUncached;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService(
+                new JwtProperties(SECRET, 3_600_000, 86_400_000, true, 10_000), null, new SimpleMeterRegistry());
+        uncachedJwtService = new JwtService(
+                new JwtProperties(SECRET, 3_600_000, 86_400_000, true, 0), null, new SimpleMeterRegistry());
+
+        SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        token = token(key, 1);
+        uncachedTokens = new String[UNCACHED_TOKENS];
+        for (int i = 0; i < UNCACHED_TOKENS; i++) {
+            uncachedTokens[i] = token(key, i + 1);
+        }
+    }
+
+    private static String token(SecretKey key, long id) {
+        return Jwts.builder()
+                .id(String.valueOf(id))
+                .claim("roles", List.of("USER"))
+                .claim("id", id)
+                .subject("bench" + id + "@notes.com")
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + 3_600_000))
+                .signWith(key, Jwts.SIG.HS256)
+                .compact();
+    }
+
+    @Benchmark
+    public Object parsePerClaim() {
+        String username = parseWithFreshParser(token).getSubject();
+        String subject = parseWithFreshParser(token).getSubject();
+        Date expiration = parseWithFreshParser(token).getExpiration();
+        return username.equals(subject) && expiration.after(new Date());
+    }
+
+    @Benchmark
+    public Object verifyUncached() {
+        String next = uncachedTokens[nextUncached];
+        nextUncached = (nextUncached + 1) % UNCACHED_TOKENS;
+        Claims claims = uncachedJwtService.verify(next);
+        return uncachedJwtService.toPrincipal(claims);
+    }
+
+    @Benchmark
+    public Object verifyCached() {
+        Claims claims = jwtService.verify(token);
+        return jwtService.toPrincipal(claims);
+    }
+
+    private static Claims parseWithFreshParser(String token) {
+        SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        return Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,95 @@
+package com.gideon.notes.benchmark;
+
+import com.gideon.notes.config.RateLimitProperties;
+import com.gideon.notes.service.RateLimitService;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.Refill;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of resolving and consuming from a client's bucket with eight threads sharing a
+ * small set of clients: the previous string-keyed LoadingCache with a probe per request
+ * against {@link RateLimitService}. Limits are set high enough that every request is allowed.
+ *
+ * <p>Run with {@code ./mvnw test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.gideon.notes.benchmark.RateLimiterBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    private static final long UNLIMITED = 1_000_000_000L;
+    private static final String[] CLIENTS = new String[64];
+
+    static {
+        for (int i = 0; i < CLIENTS.length; i++) {
+            CLIENTS[i] = "client-" + i + "@notes.com";
+        }
+    }
+
+    private RateLimitService rateLimitService;
+    private LoadingCache<String, Bucket> legacyCache;
+
+    @State(Scope.Thread)
+    public static class Client {
+        int next;
+
+        String id() {
+            return CLIENTS[next++ & (CLIENTS.length - 1)];
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit(UNLIMITED, UNLIMITED, Duration.ofSeconds(1));
+        rateLimitService = new RateLimitService(
+                new RateLimitProperties(limit, limit, limit, limit, 100_000, Duration.ofMinutes(10),
+                        RateLimitProperties.Store.MEMORY, new RateLimitProperties.Sync()));
+
+        legacyCache = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(Duration.ofMinutes(10))
+                .build(key -> newLegacyBucket());
+    }
+
+    @Benchmark
+    public boolean legacyStringKeys(Client client) {
+        String rateLimitKey = client.id() + ":" + RateLimitService.RateLimitType.API.name();
+        ConsumptionProbe probe = legacyCache.get(rateLimitKey, k -> newLegacyBucket()).tryConsumeAndReturnRemaining(1);
+        return probe.isConsumed();
+    }
+
+    @Benchmark
+    public boolean perTypeCaches(Client client) {
+        ConsumptionProbe probe = rateLimitService.resolveBucket(client.id(), RateLimitService.RateLimitType.API)
+                .tryConsumeAndReturnRemaining(1);
+        return probe.isConsumed();
+    }
+
+    private static Bucket newLegacyBucket() {
+        return Bucket.builder()
+                .addLimit(Bandwidth.classic(UNLIMITED, Refill.intervally(UNLIMITED, Duration.ofSeconds(1))))
+                .build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RateLimiterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
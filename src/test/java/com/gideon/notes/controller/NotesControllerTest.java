@@ -1,27 +1,36 @@
 package com.gideon.notes.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gideon.notes.config.JwtProperties;
 import com.gideon.notes.dto.NoteDto;
+import com.gideon.notes.security.AuthUser;
 import com.gideon.notes.security.JwtService;
+import com.gideon.notes.security.UserCache;
+import com.gideon.notes.service.RateLimitService;
+import com.gideon.notes.service.notes.NoteImporter;
 import com.gideon.notes.service.notes.NoteService;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.Refill;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
-import org.springframework.security.core.userdetails.User;
-import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -37,11 +46,22 @@ class NoteControllerTest {
     @MockBean
     private NoteService noteService;
 
+    @MockBean
+    private NoteImporter noteImporter;
+
     @MockBean
     private JwtService jwtService;
 
     @MockBean
-    private UserDetailsService userDetailsService;
+    private JwtProperties jwtProperties;
+
+    @MockBean
+    private UserCache userCache;
+
+    @MockBean
+    private RateLimitService rateLimitService;
+
+    private final AuthUser authUser = new AuthUser(1L, "testuser@notes.com", List.of("USER"));
 
     private NoteDto.NoteRequest noteRequest;
     private NoteDto.NoteResponse noteResponse;
@@ -64,18 +84,20 @@ class NoteControllerTest {
                 .updatedAt(LocalDateTime.now())
                 .build();
 
-        when(userDetailsService.loadUserByUsername(anyString()))
-                .thenReturn(new User("testuser", "password", new ArrayList<>()));
+        when(rateLimitService.resolveBucket(anyString(), any()))
+                .thenAnswer(invocation -> Bucket.builder()
+                        .addLimit(Bandwidth.classic(100, Refill.intervally(100, Duration.ofMinutes(1))))
+                        .build());
     }
 
     @Test
-    @WithMockUser(username = "testuser")
     void createNote_ShouldReturnCreatedNote() throws Exception {
-        when(noteService.createNote(eq("testuser"), any(NoteDto.NoteRequest.class)))
+        when(noteService.createNote(eq(1L), any(NoteDto.NoteRequest.class)))
                 .thenReturn(noteResponse);
 
         mockMvc.perform(post("/api/notes")
                         .with(csrf())
+                        .with(user(authUser))
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(noteRequest)))
                 .andExpect(status().isCreated())
@@ -86,7 +108,6 @@ class NoteControllerTest {
     }
 
     @Test
-    @WithMockUser(username = "testuser")
     void createNote_WithInvalidData_ShouldReturnBadRequest() throws Exception {
         NoteDto.NoteRequest invalidRequest = NoteDto.NoteRequest.builder()
                 .title("")
@@ -95,18 +116,37 @@ class NoteControllerTest {
 
         mockMvc.perform(post("/api/notes")
                         .with(csrf())
+                        .with(user(authUser))
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(invalidRequest)))
                 .andExpect(status().isBadRequest());
     }
 
     @Test
-    @WithMockUser(username = "testuser")
+    void createNote_WithOverlongTag_ShouldReturnBadRequest() throws Exception {
+        NoteDto.NoteRequest invalidRequest = NoteDto.NoteRequest.builder()
+                .title("Test Note")
+                .content("Test content")
+                .tags(List.of("ok", "t".repeat(NoteDto.MAX_TAG_LENGTH + 1)))
+                .build();
+
+        mockMvc.perform(post("/api/notes")
+                        .with(csrf())
+                        .with(user(authUser))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(invalidRequest)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.data['tags[1]']").value("Tags must not exceed 255 characters"));
+
+        verify(noteService, never()).createNote(anyLong(), any());
+    }
+
+    @Test
     void getNoteById_ShouldReturnNote() throws Exception {
-        when(noteService.getNoteById(eq("testuser"), eq(1L)))
+        when(noteService.getNoteById(eq(1L), eq(1L)))
                 .thenReturn(noteResponse);
 
-        mockMvc.perform(get("/api/notes/1"))
+        mockMvc.perform(get("/api/notes/1").with(user(authUser)))
                 .andExpect(status().isOk())
                 .andExpect(header().exists("ETag"))
                 .andExpect(jsonPath("$.id").value(1))
@@ -114,7 +154,19 @@ class NoteControllerTest {
     }
 
     @Test
-    @WithMockUser(username = "testuser")
+    void getNoteById_WithCurrentETag_ShouldReturnNotModifiedWithoutLoadingTheNote() throws Exception {
+        when(noteService.getNoteVersion(eq(1L), eq(1L)))
+                .thenReturn(0L);
+
+        mockMvc.perform(get("/api/notes/1").with(user(authUser)).header("If-None-Match", "\"0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"0\""))
+                .andExpect(content().string(""));
+
+        verify(noteService, never()).getNoteById(anyLong(), anyLong());
+    }
+
+    @Test
     void updateNote_WithIfMatch_ShouldReturnUpdatedNote() throws Exception {
         NoteDto.NoteResponse updatedResponse = NoteDto.NoteResponse.builder()
                 .id(1L)
@@ -126,11 +178,12 @@ class NoteControllerTest {
                 .updatedAt(LocalDateTime.now())
                 .build();
 
-        when(noteService.updateNote(eq("testuser"), eq(1L), any(NoteDto.NoteRequest.class), eq(0L)))
+        when(noteService.updateNote(eq(1L), eq(1L), any(NoteDto.NoteRequest.class), eq(0L)))
                 .thenReturn(updatedResponse);
 
         mockMvc.perform(put("/api/notes/1")
                         .with(csrf())
+                        .with(user(authUser))
                         .header("If-Match", "0")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(noteRequest)))
@@ -140,10 +193,10 @@ class NoteControllerTest {
     }
 
     @Test
-    @WithMockUser(username = "testuser")
     void deleteNote_ShouldReturnNoContent() throws Exception {
         mockMvc.perform(delete("/api/notes/1")
-                        .with(csrf()))
+                        .with(csrf())
+                        .with(user(authUser)))
                 .andExpect(status().isNoContent());
     }
 
@@ -1,6 +1,7 @@
 package com.gideon.notes.integration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gideon.notes.config.JwtProperties;
 import com.gideon.notes.dto.AuthDto;
 import com.gideon.notes.dto.NoteDto;
 import com.gideon.notes.entity.Note;
@@ -8,25 +9,48 @@ import com.gideon.notes.entity.User;
 import com.gideon.notes.enums.UserDomain;
 import com.gideon.notes.repository.NotesRepository;
 import com.gideon.notes.repository.UserRepository;
+import com.gideon.notes.security.UserCache;
+import com.gideon.notes.service.notes.NoteIndexBackfill;
+import com.gideon.notes.service.notes.NoteTrashPurge;
+import io.micrometer.core.instrument.FunctionCounter;
+import jakarta.persistence.EntityManager;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.transaction.TestTransaction;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@SpringBootTest
+// Changes written by a test are read back immediately; the trash purge runs in small batches
+// and revisions take a snapshot every few versions
+@SpringBootTest(properties = {"note-sync.settle-time=0s", "trash-purge.batch-size=2", "trash-purge.batch-pause=0s",
+        "note-revisions.snapshot-interval=3"})
 @AutoConfigureMockMvc
 @ActiveProfiles("test")
 @Transactional
@@ -47,6 +71,27 @@ class NotesIntegrationTest {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private JwtProperties jwtProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private NoteTrashPurge trashPurge;
+
+    @Autowired
+    private NoteIndexBackfill indexBackfill;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
     private String jwtToken;
     private User testUser;
 
@@ -55,6 +100,8 @@ class NotesIntegrationTest {
         // Clean up database
         noteRepository.deleteAll();
         userRepository.deleteAll();
+        // Users cached by a previous test belong to a rolled back transaction
+        userCache.evictAll();
 
         // Create test user
         testUser = User.builder()
@@ -71,7 +118,9 @@ class NotesIntegrationTest {
                 .password("password123")
                 .build();
 
+        // Each test logs in from its own address so the auth rate limit doesn't carry over
         MvcResult result = mockMvc.perform(post("/api/auth/login")
+                        .header("X-Forwarded-For", UUID.randomUUID().toString())
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(loginRequest)))
                 .andExpect(status().isOk())
@@ -240,6 +289,1013 @@ class NotesIntegrationTest {
     }
 
 
+    @Test
+    void search_ShouldPrefixMatchAndRankTitleHitsFirst() throws Exception {
+        String[][] notes = {
+                {"Groceries", "Buy milk before the meeting"},
+                {"Meeting notes", "Quarterly planning meeting"},
+                {"Holiday", "Book flights"}
+        };
+        for (String[] n : notes) {
+            mockMvc.perform(post("/api/notes")
+                            .header("Authorization", "Bearer " + jwtToken)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(NoteDto.NoteRequest.builder()
+                                    .title(n[0])
+                                    .content(n[1])
+                                    .build())))
+                    .andExpect(status().isCreated());
+        }
+
+        mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .param("search", "meet"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(2))
+                .andExpect(jsonPath("$.notes[0].title").value("Meeting notes"))
+                .andExpect(jsonPath("$.notes[1].title").value("Groceries"));
+
+        mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .param("search", "milk meet"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.notes[0].title").value("Groceries"));
+
+        // Only the last word is a prefix; the words before it are complete
+        mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .param("search", "meet milk"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(0));
+        mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .param("search", "meeting mi"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.notes[0].title").value("Groceries"));
+    }
+
+
+    @Test
+    void tagFilter_ShouldMatchWholeTagsOnly() throws Exception {
+        Note work = Note.builder().title("Standup").content("Daily standup").user(testUser).build();
+        work.setTagList(Arrays.asList("Work"));
+        noteRepository.save(work);
+
+        Note homework = Note.builder().title("Maths").content("Exercises 1-4").user(testUser).build();
+        homework.setTagList(Arrays.asList("homework"));
+        noteRepository.save(homework);
+
+        mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .param("tag", "work"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.notes[0].title").value("Standup"))
+                .andExpect(jsonPath("$.notes[0].tags[0]").value("work"));
+    }
+
+
+    @Test
+    void multiTagFilter_ShouldSupportAllAnyAndExclusion() throws Exception {
+        String[][] tagSets = {{"work", "urgent"}, {"work"}, {"urgent", "home"}, {"home"}};
+        for (int i = 0; i < tagSets.length; i++) {
+            Note note = Note.builder().title("Note " + i).content("Body " + i).user(testUser).build();
+            note.setTagList(Arrays.asList(tagSets[i]));
+            noteRepository.save(note);
+        }
+
+        mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .param("tag", "work,urgent"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.notes[0].title").value("Note 0"));
+
+        mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .param("tag", "work,urgent")
+                        .param("tagMode", "any"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(3));
+
+        mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .param("tag", "work,home")
+                        .param("tagMode", "any")
+                        .param("excludeTag", "urgent"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(2));
+
+        mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .param("search", "body")
+                        .param("excludeTag", "work"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(2));
+
+        mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .param("tag", "work")
+                        .param("tagMode", "some"))
+                .andExpect(status().isBadRequest());
+    }
+
+
+    @Test
+    void scroll_ShouldWalkAllNotesWithCursor() throws Exception {
+        for (int i = 1; i <= 5; i++) {
+            noteRepository.save(Note.builder().title("Note " + i).content("Content " + i).user(testUser).build());
+        }
+
+        Set<Long> seen = new HashSet<>();
+        String cursor = null;
+        int slices = 0;
+        do {
+            MvcResult result = mockMvc.perform(get("/api/notes/scroll")
+                            .header("Authorization", "Bearer " + jwtToken)
+                            .param("size", "2")
+                            .param("after", cursor == null ? "" : cursor))
+                    .andExpect(status().isOk())
+                    .andReturn();
+
+            NoteDto.CursorNotesResponse slice = objectMapper.readValue(
+                    result.getResponse().getContentAsString(),
+                    NoteDto.CursorNotesResponse.class
+            );
+            slice.getNotes().forEach(note -> assertThat(seen.add(note.getId())).isTrue());
+            cursor = slice.getNextCursor();
+            slices++;
+        } while (cursor != null);
+
+        assertThat(seen).hasSize(5);
+        assertThat(slices).isEqualTo(3);
+
+        mockMvc.perform(get("/api/notes/scroll")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+
+    @Test
+    void summaryView_ShouldReturnTruncatedSnippetInsteadOfContent() throws Exception {
+        String longContent = "meeting ".repeat(100);
+        noteRepository.save(Note.builder().title("Long").content(longContent).tags("work").user(testUser).build());
+        noteRepository.save(Note.builder().title("Short").content("brief").user(testUser).build());
+
+        MvcResult result = mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .param("view", "summary")
+                        .param("sortBy", "title"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.notes[0].content").doesNotExist())
+                .andReturn();
+
+        NoteDto.PagedNoteSummariesResponse response = objectMapper.readValue(
+                result.getResponse().getContentAsString(),
+                NoteDto.PagedNoteSummariesResponse.class
+        );
+
+        assertThat(response.getTotalElements()).isEqualTo(2);
+        NoteDto.NoteSummary shortNote = response.getNotes().get(0);
+        NoteDto.NoteSummary longNote = response.getNotes().get(1);
+        assertThat(shortNote.getSnippet()).isEqualTo("brief");
+        assertThat(shortNote.isTruncated()).isFalse();
+        assertThat(longNote.getSnippet()).isEqualTo(longContent.substring(0, 200));
+        assertThat(longNote.isTruncated()).isTrue();
+        assertThat(longNote.getTags()).containsExactly("work");
+
+        mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .param("view", "summary")
+                        .param("search", "meet"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.notes.length()").value(1))
+                .andExpect(jsonPath("$.notes[0].title").value("Long"));
+
+        mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .param("view", "compact"))
+                .andExpect(status().isBadRequest());
+    }
+
+
+    @Test
+    void batchCreate_ShouldCreateEveryNoteWithTermsAndTags() throws Exception {
+        // More than one flush chunk, so ids and child rows span several JDBC batches
+        List<NoteDto.NoteRequest> notes = IntStream.range(0, 150)
+                .mapToObj(i -> NoteDto.NoteRequest.builder()
+                        .title("Imported " + i)
+                        .content(i % 2 == 0 ? "quarterly budget" : "holiday plans")
+                        .tags(List.of("import", i % 2 == 0 ? "finance" : "travel"))
+                        .build())
+                .toList();
+
+        MvcResult result = mockMvc.perform(post("/api/notes/batch")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new NoteDto.BatchNoteRequest(notes))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.created").value(150))
+                .andExpect(jsonPath("$.notes[0].title").value("Imported 0"))
+                .andExpect(jsonPath("$.notes[149].title").value("Imported 149"))
+                .andReturn();
+
+        NoteDto.BatchNoteResponse response = objectMapper.readValue(
+                result.getResponse().getContentAsString(), NoteDto.BatchNoteResponse.class);
+        assertThat(response.getNotes()).extracting(NoteDto.NoteResponse::getId).doesNotHaveDuplicates();
+
+        mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .param("search", "budget"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(75));
+
+        mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .param("tag", "travel"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(75));
+    }
+
+
+    @Test
+    void batchCreate_ShouldRejectTheWholeBatchWhenOneNoteIsInvalid() throws Exception {
+        List<NoteDto.NoteRequest> notes = List.of(
+                NoteDto.NoteRequest.builder().title("Valid").content("content").build(),
+                NoteDto.NoteRequest.builder().title(" ").content("content").build());
+
+        mockMvc.perform(post("/api/notes/batch")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new NoteDto.BatchNoteRequest(notes))))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(post("/api/notes/batch")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new NoteDto.BatchNoteRequest(List.of()))))
+                .andExpect(status().isBadRequest());
+
+        assertThat(noteRepository.count()).isZero();
+    }
+
+
+    @Test
+    void bulkDeleteAndRestore_ShouldReportPerItemResults() throws Exception {
+        Note first = noteRepository.save(Note.builder().title("First").content("one").user(testUser).build());
+        Note second = noteRepository.save(Note.builder().title("Second").content("two").user(testUser).build());
+        Note third = noteRepository.save(Note.builder().title("Third").content("three").user(testUser).build());
+        noteRepository.flush();
+
+        List<NoteDto.BulkNoteItem> items = List.of(
+                new NoteDto.BulkNoteItem(first.getId(), first.getVersion()),
+                new NoteDto.BulkNoteItem(second.getId(), second.getVersion() + 5),
+                new NoteDto.BulkNoteItem(third.getId(), null),
+                new NoteDto.BulkNoteItem(Long.MAX_VALUE, null));
+
+        mockMvc.perform(post("/api/notes/bulk/delete")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new NoteDto.BulkNotesRequest(items))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(2))
+                .andExpect(jsonPath("$.failed").value(2))
+                .andExpect(jsonPath("$.results[0].status").value("UPDATED"))
+                .andExpect(jsonPath("$.results[0].version").value(first.getVersion() + 1))
+                .andExpect(jsonPath("$.results[1].status").value("VERSION_CONFLICT"))
+                .andExpect(jsonPath("$.results[1].version").value(second.getVersion()))
+                .andExpect(jsonPath("$.results[2].status").value("UPDATED"))
+                .andExpect(jsonPath("$.results[3].status").value("NOT_FOUND"));
+
+        assertThat(noteRepository.findById(first.getId()).orElseThrow().getDeletedAt()).isNotNull();
+        assertThat(noteRepository.findById(second.getId()).orElseThrow().getDeletedAt()).isNull();
+
+        // The second note is not deleted, so restoring it reports NOT_FOUND
+        mockMvc.perform(post("/api/notes/bulk/restore")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new NoteDto.BulkNotesRequest(List.of(
+                                new NoteDto.BulkNoteItem(first.getId(), first.getVersion() + 1),
+                                new NoteDto.BulkNoteItem(second.getId(), null))))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].status").value("UPDATED"))
+                .andExpect(jsonPath("$.results[0].version").value(first.getVersion() + 2))
+                .andExpect(jsonPath("$.results[1].status").value("NOT_FOUND"));
+
+        assertThat(noteRepository.findById(first.getId()).orElseThrow().getDeletedAt()).isNull();
+    }
+
+
+    @Test
+    void bulkRetag_ShouldAddAndRemoveTagsOnActiveNotes() throws Exception {
+        Note todo = new Note();
+        todo.setTitle("Todo");
+        todo.setContent("one");
+        todo.setUser(testUser);
+        todo.setTagList(List.of("todo", "work"));
+        todo = noteRepository.save(todo);
+        Note other = new Note();
+        other.setTitle("Other");
+        other.setContent("two");
+        other.setUser(testUser);
+        other.setTagList(List.of("home"));
+        other = noteRepository.save(other);
+        noteRepository.flush();
+        // The notes stay managed by the test transaction, so remember the versions they started at
+        long todoVersion = todo.getVersion();
+
+        NoteDto.BulkTagsRequest request = new NoteDto.BulkTagsRequest(List.of(
+                new NoteDto.BulkNoteItem(todo.getId(), todoVersion),
+                new NoteDto.BulkNoteItem(other.getId(), other.getVersion() + 1)),
+                List.of("Archive"), List.of("todo"));
+
+        mockMvc.perform(post("/api/notes/bulk/tags")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].status").value("UPDATED"))
+                .andExpect(jsonPath("$.results[0].version").value(todoVersion + 1))
+                .andExpect(jsonPath("$.results[1].status").value("VERSION_CONFLICT"));
+
+        mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .param("tag", "archive"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.notes[0].tags[0]").value("work"))
+                .andExpect(jsonPath("$.notes[0].tags[1]").value("archive"));
+
+        mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .param("tag", "todo"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(0));
+    }
+
+
+    @Test
+    void export_ShouldStreamOneNotePerLine() throws Exception {
+        List<NoteDto.NoteRequest> notes = IntStream.range(0, 3)
+                .mapToObj(i -> NoteDto.NoteRequest.builder()
+                        .title("Export " + i)
+                        .content("line " + i + "\nwith a break")
+                        .tags(List.of("export"))
+                        .build())
+                .toList();
+        NoteDto.BatchNoteResponse created = objectMapper.readValue(mockMvc.perform(post("/api/notes/batch")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new NoteDto.BatchNoteRequest(notes))))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString(), NoteDto.BatchNoteResponse.class);
+
+        mockMvc.perform(delete("/api/notes/" + created.getNotes().get(1).getId())
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isNoContent());
+
+        String active = mockMvc.perform(get("/api/notes/export")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        List<String> lines = active.lines().toList();
+        assertThat(active).endsWith("\n");
+        assertThat(lines).hasSize(2);
+        NoteDto.NoteResponse first = objectMapper.readValue(lines.get(0), NoteDto.NoteResponse.class);
+        assertThat(first.getTitle()).isEqualTo("Export 0");
+        assertThat(first.getContent()).isEqualTo("line 0\nwith a break");
+        assertThat(objectMapper.readValue(lines.get(1), NoteDto.NoteResponse.class).getTitle()).isEqualTo("Export 2");
+
+        String all = mockMvc.perform(get("/api/notes/export")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .param("includeDeleted", "true"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(all.lines()).hasSize(3);
+    }
+
+
+    @Test
+    void importNdjson_ShouldSkipAndReportInvalidLines() throws Exception {
+        String upload = """
+                {"title":"Imported one","content":"first body","tags":["import"]}
+
+                {"title":"","content":"no title"}
+                {"title":"Broken",
+                {"title":"Imported two","content":"second body","source":"other-app"}
+                """;
+
+        mockMvc.perform(post("/api/notes/import")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType("application/x-ndjson")
+                        .content(upload))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.processed").value(4))
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.failed").value(2))
+                .andExpect(jsonPath("$.errors[0].record").value(3))
+                .andExpect(jsonPath("$.errors[0].message").value("Title is required"))
+                .andExpect(jsonPath("$.errors[1].record").value(4))
+                .andExpect(jsonPath("$.errorsTruncated").value(false));
+
+        mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .param("tag", "import"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.notes[0].title").value("Imported one"));
+    }
+
+
+    // Runs outside the test transaction: each batch write commits or rolls back on its own,
+    // as it does for a real upload
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void importNdjson_ShouldReportOnlyTheRecordsTheDatabaseRejects() throws Exception {
+        // Five tags of 250 characters pass validation but overflow the 1000 character tags column
+        String overflowingTags = objectMapper.writeValueAsString(
+                IntStream.range(0, 5).mapToObj(i -> i + "t".repeat(249)).toList());
+        StringBuilder upload = new StringBuilder();
+        for (int i = 1; i <= 9; i++) {
+            upload.append(i == 6
+                    ? "{\"title\":\"Too many tags\",\"content\":\"x\",\"tags\":" + overflowingTags + "}"
+                    : "{\"title\":\"Note " + i + "\",\"content\":\"body\"}").append('\n');
+        }
+
+        try {
+            mockMvc.perform(post("/api/notes/import")
+                            .header("Authorization", "Bearer " + jwtToken)
+                            .contentType("application/x-ndjson")
+                            .content(upload.toString()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.processed").value(9))
+                    .andExpect(jsonPath("$.imported").value(8))
+                    .andExpect(jsonPath("$.failed").value(1))
+                    .andExpect(jsonPath("$.errors.length()").value(1))
+                    .andExpect(jsonPath("$.errors[0].record").value(6))
+                    .andExpect(jsonPath("$.errors[0].message").value("Could not be saved"));
+
+            assertThat(noteRepository.count()).isEqualTo(8);
+        } finally {
+            noteRepository.deleteAll();
+            userRepository.deleteAll();
+        }
+    }
+
+
+    @Test
+    void importJsonArray_ShouldImportAcrossSeveralBatches() throws Exception {
+        StringBuilder upload = new StringBuilder("[");
+        for (int i = 0; i < 1_200; i++) {
+            upload.append(i == 0 ? "" : ",").append(i == 7
+                    ? "{\"title\":\"Bad\",\"content\":\"x\",\"tags\":{\"not\":\"a list\"}}"
+                    : "{\"title\":\"Note " + i + "\",\"content\":\"bulk body\"}");
+        }
+        upload.append("]");
+
+        mockMvc.perform(post("/api/notes/import")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(upload.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.processed").value(1_200))
+                .andExpect(jsonPath("$.imported").value(1_199))
+                .andExpect(jsonPath("$.errors[0].record").value(8));
+
+        assertThat(noteRepository.count()).isEqualTo(1_199);
+
+        mockMvc.perform(post("/api/notes/import")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Not an array\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+
+    @Test
+    void changes_ShouldReturnOnlyNotesChangedAfterTheToken() throws Exception {
+        Note first = noteRepository.save(Note.builder().title("First").content("one").user(testUser).build());
+        Note second = noteRepository.save(Note.builder().title("Second").content("two").user(testUser).build());
+        noteRepository.flush();
+
+        NoteDto.ChangesResponse initial = changes(null, 500);
+        assertThat(initial.getChanges()).extracting(NoteDto.NoteResponse::getTitle).containsExactly("First", "Second");
+        assertThat(initial.isHasMore()).isFalse();
+
+        assertThat(changes(initial.getNextToken(), 500).getChanges()).isEmpty();
+
+        mockMvc.perform(put("/api/notes/" + second.getId())
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                NoteDto.NoteRequest.builder().title("Second edited").content("two").build())))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/notes/" + first.getId())
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isNoContent());
+        // Stamps updated_at now, as the commit of a real request would
+        noteRepository.flush();
+
+        NoteDto.ChangesResponse page = changes(initial.getNextToken(), 1);
+        assertThat(page.getChanges()).extracting(NoteDto.NoteResponse::getTitle).containsExactly("Second edited");
+        assertThat(page.isHasMore()).isTrue();
+
+        NoteDto.ChangesResponse rest = changes(page.getNextToken(), 1);
+        assertThat(rest.getChanges()).singleElement().satisfies(note -> {
+            assertThat(note.getId()).isEqualTo(first.getId());
+            assertThat(note.getDeletedAt()).isNotNull();
+        });
+        assertThat(rest.isHasMore()).isFalse();
+
+        mockMvc.perform(get("/api/notes/changes")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .param("since", "not-a-token"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void changes_ShouldStopBeforeTheFirstUnsettledChange() throws Exception {
+        Note earlier = noteRepository.save(Note.builder().title("Earlier").content("one").user(testUser).build());
+        Note later = noteRepository.save(Note.builder().title("Later").content("two").user(testUser).build());
+        noteRepository.flush();
+        String token = changes(null, 10).getNextToken();
+
+        // The earlier change is still unsettled (a write whose transaction began late), while the
+        // later one carries an updated_at from before it (a write that waited on a lock)
+        jdbcTemplate.update("UPDATE notes SET updated_at = DATEADD('HOUR', 1, LOCALTIMESTAMP) WHERE id = ?", earlier.getId());
+        jdbcTemplate.update("UPDATE notes SET updated_at = DATEADD('HOUR', -1, LOCALTIMESTAMP) WHERE id = ?", later.getId());
+        entityManager.clear();
+
+        NoteDto.ChangesResponse held = changes(token, 10);
+        assertThat(held.getChanges()).isEmpty();
+        assertThat(held.getNextToken()).isEqualTo(token);
+        assertThat(held.isHasMore()).isFalse();
+
+        // Once it settles both are handed out in sequence order; setting change_seq keeps it
+        jdbcTemplate.update("UPDATE notes SET updated_at = LOCALTIMESTAMP, change_seq = change_seq WHERE id = ?",
+                earlier.getId());
+        entityManager.clear();
+
+        assertThat(changes(token, 10).getChanges()).extracting(NoteDto.NoteResponse::getTitle)
+                .containsExactly("Earlier", "Later");
+    }
+
+    private NoteDto.ChangesResponse changes(String since, int limit) throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/notes/changes")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .param("since", since == null ? "" : since)
+                        .param("limit", String.valueOf(limit)))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readValue(result.getResponse().getContentAsString(), NoteDto.ChangesResponse.class);
+    }
+
+
+    @Test
+    void conditionalGet_ShouldAnswerNotModifiedUntilNotesChange() throws Exception {
+        Note note = noteRepository.saveAndFlush(Note.builder().title("Cached").content("body").user(testUser).build());
+
+        String noteETag = mockMvc.perform(get("/api/notes/" + note.getId())
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        String listETag = mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", startsWith("W/")))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/notes/" + note.getId())
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .header("If-None-Match", noteETag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .header("If-None-Match", listETag)
+                        .param("size", "5"))
+                .andExpect(status().isNotModified());
+
+        // Other parameters are another listing
+        mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .header("If-None-Match", listETag)
+                        .param("size", "6"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(put("/api/notes/" + note.getId())
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                NoteDto.NoteRequest.builder().title("Cached, edited").content("body").build())))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/notes/" + note.getId())
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .header("If-None-Match", noteETag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Cached, edited"));
+        mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .header("If-None-Match", listETag)
+                        .param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(listETag)));
+    }
+
+
+    @Test
+    void userCache_ShouldServeRepeatedLookupsAndEvictOnUserChange() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertThat(userCache.findByEmail("test@notes.com")).isPresent();
+        }
+
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "users").tag("result", "hit")
+                .functionCounter().count()).isPositive();
+        assertThat(userCache.findByEmail("test@notes.com")).containsSame(
+                userCache.findByEmail("test@notes.com").orElseThrow());
+
+        User user = userRepository.findByEmail("test@notes.com").orElseThrow();
+        user.setUsername("renamed");
+        userRepository.saveAndFlush(user);
+
+        assertThat(userCache.findByEmail("test@notes.com"))
+                .hasValueSatisfying(cached -> assertThat(cached.realUserName()).isEqualTo("renamed"));
+
+        // Evicted again when the transaction completes; rolling back drops the user as well
+        TestTransaction.end();
+        assertThat(userCache.findByEmail("test@notes.com")).isEmpty();
+    }
+
+
+    @Test
+    void userCache_ShouldServeRepeatedAuthenticatedRequestsWhenPrincipalIsLookedUp() throws Exception {
+        assertThat(jwtProperties.isStatelessPrincipal()).isFalse();
+        // The login in setUp cached the user
+        double hitsBefore = userCacheGets("hit");
+        double missesBefore = userCacheGets("miss");
+
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/api/notes").header("Authorization", "Bearer " + jwtToken))
+                    .andExpect(status().isOk());
+        }
+
+        assertThat(userCacheGets("hit") - hitsBefore).isEqualTo(3);
+        assertThat(userCacheGets("miss")).isEqualTo(missesBefore);
+    }
+
+    private double userCacheGets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", "users").tag("result", result)
+                .functionCounter().count();
+    }
+
+
+    @Test
+    void statelessPrincipal_ShouldServeNotesWithoutLookingUpTheUser() throws Exception {
+        jwtProperties.setStatelessPrincipal(true);
+        try {
+            double lookupsBefore = userCacheLookups();
+
+            mockMvc.perform(post("/api/notes")
+                            .header("Authorization", "Bearer " + jwtToken)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(NoteDto.NoteRequest.builder()
+                                    .title("Stateless").content("No user query").build())))
+                    .andExpect(status().isCreated());
+            mockMvc.perform(get("/api/notes").header("Authorization", "Bearer " + jwtToken))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.notes[0].title").value("Stateless"));
+
+            assertThat(userCacheLookups()).isEqualTo(lookupsBefore);
+        } finally {
+            jwtProperties.setStatelessPrincipal(false);
+        }
+    }
+
+    private double userCacheLookups() {
+        return meterRegistry.get("cache.gets").tag("cache", "users").functionCounters().stream()
+                .mapToDouble(FunctionCounter::count)
+                .sum();
+    }
+
+
+    @Test
+    void update_ShouldRewriteTagsAndSearchTermsAndTellMissingFromStale() throws Exception {
+        Note note = noteRepository.saveAndFlush(Note.builder().title("Groceries").content("apples").user(testUser).build());
+        note.setTagList(List.of("home"));
+        note = noteRepository.saveAndFlush(note);
+        long version = note.getVersion();
+
+        mockMvc.perform(put("/api/notes/" + note.getId())
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .header("If-Match", "\"" + version + "\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(NoteDto.NoteRequest.builder()
+                                .title("Hardware").content("nails").tags(List.of(" Work ", "home")).build())))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"" + (version + 1) + "\""))
+                .andExpect(jsonPath("$.version").value(version + 1))
+                .andExpect(jsonPath("$.tags[0]").value("work"))
+                .andExpect(jsonPath("$.createdAt").isNotEmpty());
+
+        mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .param("tag", "work,home"))
+                .andExpect(jsonPath("$.totalElements").value(1));
+        mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .param("search", "nails"))
+                .andExpect(jsonPath("$.notes[0].title").value("Hardware"));
+        mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .param("search", "apples"))
+                .andExpect(jsonPath("$.totalElements").value(0));
+
+        String edit = objectMapper.writeValueAsString(NoteDto.NoteRequest.builder().title("Again").content("again").build());
+        mockMvc.perform(put("/api/notes/" + note.getId())
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .header("If-Match", String.valueOf(version))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(edit))
+                .andExpect(status().isConflict());
+        mockMvc.perform(put("/api/notes/" + (note.getId() + 1000))
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .header("If-Match", String.valueOf(version))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(edit))
+                .andExpect(status().isNotFound());
+    }
+
+
+    @Test
+    void update_ShouldWriteOnlyTheTagRowsThatChanged() throws Exception {
+        Note note = noteRepository.saveAndFlush(Note.builder().title("Tagged").content("body").user(testUser).build());
+        note.setTagList(List.of("keep", "drop"));
+        note = noteRepository.saveAndFlush(note);
+        Long keptRowId = tagRowIds(note.getId()).get("keep");
+
+        mockMvc.perform(put("/api/notes/" + note.getId())
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(NoteDto.NoteRequest.builder()
+                                .title("Tagged").content("new body").tags(List.of("drop", "KEEP")).build())))
+                .andExpect(status().isOk());
+        noteRepository.flush();
+        Map<String, Long> contentOnly = tagRowIds(note.getId());
+        assertThat(contentOnly).containsOnlyKeys("keep", "drop").containsEntry("keep", keptRowId);
+
+        mockMvc.perform(put("/api/notes/" + note.getId())
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(NoteDto.NoteRequest.builder()
+                                .title("Tagged").content("new body").tags(List.of("keep", "add")).build())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tags[1]").value("add"));
+        noteRepository.flush();
+        assertThat(tagRowIds(note.getId())).containsOnlyKeys("keep", "add").containsEntry("keep", keptRowId);
+    }
+
+    private Map<String, Long> tagRowIds(Long noteId) {
+        return jdbcTemplate.queryForList("SELECT tag, id FROM note_tags WHERE note_id = ?", noteId).stream()
+                .collect(Collectors.toMap(row -> (String) row.get("TAG"), row -> ((Number) row.get("ID")).longValue()));
+    }
+
+
+    @Test
+    void deleteAndRestore_ShouldAnswerNotFoundWhenThereIsNothingToChange() throws Exception {
+        Note note = noteRepository.saveAndFlush(Note.builder().title("Trash me").content("body").user(testUser).build());
+        note.setTagList(List.of("old"));
+        note = noteRepository.saveAndFlush(note);
+        long version = note.getVersion();
+
+        mockMvc.perform(post("/api/notes/" + note.getId() + "/restore")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(delete("/api/notes/" + note.getId())
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(delete("/api/notes/" + note.getId())
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(post("/api/notes/" + note.getId() + "/restore")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(note.getId()))
+                .andExpect(jsonPath("$.content").value("body"))
+                .andExpect(jsonPath("$.tags[0]").value("old"))
+                .andExpect(jsonPath("$.version").value(version + 2))
+                .andExpect(jsonPath("$.deletedAt").doesNotExist());
+
+        mockMvc.perform(delete("/api/notes/" + (note.getId() + 1000))
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isNotFound());
+    }
+
+
+    @Test
+    void trashedNotes_ShouldOnlyAppearInTheTrash() throws Exception {
+        Note kept = Note.builder().title("Kept plan").content("roadmap").user(testUser).build();
+        kept.setTagList(List.of("work"));
+        Note trashed = Note.builder().title("Trashed plan").content("roadmap").user(testUser).build();
+        trashed.setTagList(List.of("work"));
+        noteRepository.saveAllAndFlush(List.of(kept, trashed));
+
+        mockMvc.perform(delete("/api/notes/" + trashed.getId())
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isNoContent());
+
+        for (String[] params : new String[][]{{"search", "roadmap"}, {"tag", "work"}, {"view", "summary"}}) {
+            mockMvc.perform(get("/api/notes")
+                            .header("Authorization", "Bearer " + jwtToken)
+                            .param(params[0], params[1]))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalElements").value(1))
+                    .andExpect(jsonPath("$.notes[0].title").value("Kept plan"));
+        }
+        mockMvc.perform(get("/api/notes/scroll")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(jsonPath("$.notes.length()").value(1));
+        mockMvc.perform(put("/api/notes/" + trashed.getId())
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                NoteDto.NoteRequest.builder().title("Edited").content("roadmap").build())))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(get("/api/notes/trash")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.notes[0].id").value(trashed.getId()))
+                .andExpect(jsonPath("$.notes[0].deletedAt").isNotEmpty());
+
+        // Its terms stayed indexed, so the restored note is found again without a reindex
+        mockMvc.perform(post("/api/notes/" + trashed.getId() + "/restore")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .param("search", "roadmap"))
+                .andExpect(jsonPath("$.totalElements").value(2));
+    }
+
+
+    @Test
+    void indexBackfill_ShouldIndexNotesWrittenBeforeTheIndexTables() throws Exception {
+        Note first = Note.builder().title("Legacy plan").content("quarterly roadmap").user(testUser).build();
+        first.setTagList(List.of("work", "old"));
+        Note second = Note.builder().title("Legacy list").content("groceries").user(testUser).build();
+        second.setTagList(List.of("home"));
+        noteRepository.saveAllAndFlush(List.of(first, second));
+        jdbcTemplate.update("DELETE FROM note_terms");
+        jdbcTemplate.update("DELETE FROM note_tags");
+        entityManager.clear();
+
+        indexBackfill.backfill();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM note_tags", Long.class)).isEqualTo(3);
+        mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .param("search", "roadmap")
+                        .param("tag", "work"))
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.notes[0].title").value("Legacy plan"));
+    }
+
+    @Test
+    void trashPurge_ShouldDeleteNotesTrashedBeforeTheRetentionWithTheirTermsAndTags() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        List<Note> notes = new ArrayList<>();
+        for (int daysAgo : new int[]{45, 40, 31, 29}) {
+            Note note = Note.builder().title("Old " + daysAgo).content("expired content").user(testUser).build();
+            note.setTagList(List.of("old"));
+            note.setDeletedAt(now.minusDays(daysAgo));
+            notes.add(note);
+        }
+        Note active = Note.builder().title("Active").content("kept content").user(testUser).build();
+        active.setTagList(List.of("old"));
+        notes.add(active);
+        noteRepository.saveAllAndFlush(notes);
+        double purgedBefore = meterRegistry.get("notes.trash.purged").counter().count();
+
+        assertThat(trashPurge.purge()).isEqualTo(3);
+
+        assertThat(noteRepository.findAll()).extracting(Note::getTitle).containsExactlyInAnyOrder("Old 29", "Active");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM note_tags", Long.class)).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT note_id) FROM note_terms", Long.class)).isEqualTo(2);
+        assertThat(meterRegistry.get("notes.trash.purged").counter().count()).isEqualTo(purgedBefore + 3);
+        assertThat(meterRegistry.get("notes.trash.purge.batch").timer().count()).isPositive();
+
+        assertThat(trashPurge.purge()).isZero();
+    }
+
+    @Test
+    void trashPurge_ShouldMoveListingETagsForwardAndRefuseOlderChangeTokens() throws Exception {
+        Note expired = noteRepository.save(Note.builder().title("Expired").content("old").user(testUser).build());
+        noteRepository.save(Note.builder().title("Kept").content("new").user(testUser).build());
+        noteRepository.flush();
+
+        String listETag = mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(jsonPath("$.totalElements").value(2))
+                .andReturn().getResponse().getHeader("ETag");
+        String tokenBeforeTrash = changes(null, 500).getNextToken();
+
+        // Trashed past the retention; the trash change now holds the user's highest sequence
+        jdbcTemplate.update("UPDATE notes SET deleted_at = ? WHERE id = ?",
+                LocalDateTime.now().minusDays(40), expired.getId());
+        entityManager.clear();
+        String tokenAfterTrash = changes(null, 500).getNextToken();
+
+        assertThat(trashPurge.purge()).isEqualTo(1);
+
+        // Without the purged row MAX(change_seq) is back at the value listETag was built from
+        String newListETag = mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .header("If-None-Match", listETag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(newListETag).isNotEqualTo(listETag);
+
+        mockMvc.perform(get("/api/notes/changes")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .param("since", tokenBeforeTrash))
+                .andExpect(status().isGone())
+                .andExpect(jsonPath("$.message").value("Change token is too old, sync again without a token"));
+        assertThat(changes(tokenAfterTrash, 500).getChanges()).isEmpty();
+        assertThat(changes(null, 500).getChanges()).extracting(NoteDto.NoteResponse::getTitle).containsExactly("Kept");
+    }
+
+
+    @Test
+    void revisions_ShouldRebuildEveryVersionFromDeltasAndSnapshots() throws Exception {
+        String body = "Long note. ".repeat(500);
+        MvcResult created = mockMvc.perform(post("/api/notes")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                NoteDto.NoteRequest.builder().title("Draft").content(body + "v0").build())))
+                .andExpect(status().isCreated())
+                .andReturn();
+        long id = objectMapper.readValue(created.getResponse().getContentAsString(), NoteDto.NoteResponse.class).getId();
+
+        for (int v = 1; v <= 7; v++) {
+            mockMvc.perform(put("/api/notes/" + id)
+                            .header("Authorization", "Bearer " + jwtToken)
+                            .header("If-Match", String.valueOf(v - 1))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(NoteDto.NoteRequest.builder()
+                                    .title("Draft " + v).content(body + "v" + v).tags(List.of("v" + v)).build())))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.version").value(v));
+        }
+
+        // Small edits to a long note are stored as deltas, with a snapshot every third version
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT version FROM note_revisions WHERE note_id = ? AND snapshot ORDER BY version", Long.class, id))
+                .containsExactly(0L, 3L, 6L);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT MAX(LENGTH(content)) FROM note_revisions WHERE note_id = ? AND NOT snapshot", Integer.class, id))
+                .isLessThan(5);
+
+        mockMvc.perform(get("/api/notes/" + id + "/revisions")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .param("size", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(8))
+                .andExpect(jsonPath("$.revisions[0].version").value(7))
+                .andExpect(jsonPath("$.revisions[0].title").value("Draft 7"))
+                .andExpect(jsonPath("$.revisions[0].content").doesNotExist());
+
+        for (int v = 0; v <= 7; v++) {
+            mockMvc.perform(get("/api/notes/" + id + "/revisions/" + v)
+                            .header("Authorization", "Bearer " + jwtToken))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.version").value(v))
+                    .andExpect(jsonPath("$.title").value(v == 0 ? "Draft" : "Draft " + v))
+                    .andExpect(jsonPath("$.content").value(body + "v" + v));
+        }
+
+        mockMvc.perform(get("/api/notes/" + id + "/revisions/8")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/notes/" + (id + 1000) + "/revisions")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isNotFound());
+    }
+
+
     @Test
     void optimisticLocking_ShouldPreventConcurrentUpdates() throws Exception {
         // Create a note
@@ -305,4 +1361,27 @@ class NotesIntegrationTest {
 
         assertThat(userRepository.findByUsername("newuser")).isPresent();
     }
+
+
+    @Test
+    void rateLimit_ShouldReportTheTokensLeftAfterEachRequest() throws Exception {
+        String clientAddress = UUID.randomUUID().toString();
+        String loginRequest = objectMapper.writeValueAsString(AuthDto.LoginRequest.builder()
+                .email("test@notes.com")
+                .password("password123")
+                .build());
+
+        List<Long> remaining = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            String header = mockMvc.perform(post("/api/auth/login")
+                            .header("X-Forwarded-For", clientAddress)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(loginRequest))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader("X-Rate-Limit-Remaining");
+            remaining.add(Long.parseLong(header));
+        }
+
+        assertThat(remaining.get(1)).isEqualTo(remaining.get(0) - 1);
+    }
 }
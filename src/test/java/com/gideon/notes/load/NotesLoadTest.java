@@ -0,0 +1,164 @@
+package com.gideon.notes.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gideon.notes.service.RateLimitService;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.Refill;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Drives the real HTTP stack (Tomcat, JWT filter, rate limit interceptor, transactional note
+ * service, H2) with many concurrent clients and prints throughput and latency percentiles.
+ * Run it once per threading mode and compare:
+ *
+ * <pre>
+ * ./mvnw test -Dtest=NotesLoadTest -Dloadtest=true -Dspring.threads.virtual.enabled=false
+ * ./mvnw test -Dtest=NotesLoadTest -Dloadtest=true -Dspring.threads.virtual.enabled=true \
+ *     -DargLine=-Djdk.tracePinnedThreads=short
+ * </pre>
+ *
+ * The rate limiter is given an effectively unlimited bucket so it is exercised without
+ * throttling the run.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+@EnabledForJreRange(min = JRE.JAVA_21)
+class NotesLoadTest {
+
+    private static final int CLIENTS = Integer.getInteger("loadtest.clients", 400);
+    private static final int REQUESTS_PER_CLIENT = Integer.getInteger("loadtest.requests", 50);
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private RateLimitService rateLimitService;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    @Test
+    void listAndReadNotesUnderConcurrentLoad() throws Exception {
+        when(rateLimitService.resolveBucket(anyString(), any())).thenAnswer(invocation -> Bucket.builder()
+                .addLimit(Bandwidth.classic(1_000_000_000, Refill.greedy(1_000_000_000, Duration.ofSeconds(1))))
+                .build());
+
+        String token = signupAndLogin();
+        long[] noteIds = new long[20];
+        for (int i = 0; i < noteIds.length; i++) {
+            noteIds[i] = objectMapper.readTree(send(token, HttpRequest.newBuilder(uri("/api/notes"))
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "{\"title\":\"Load note " + i + "\",\"content\":\"meeting agenda " + i + "\",\"tags\":[\"load\"]}"))))
+                    .get("id").asLong();
+        }
+
+        long[] latencies = new long[CLIENTS * REQUESTS_PER_CLIENT];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+
+        long start = System.nanoTime();
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            Future<?>[] running = new Future<?>[CLIENTS];
+            for (int c = 0; c < CLIENTS; c++) {
+                running[c] = clients.submit(() -> {
+                    for (int r = 0; r < REQUESTS_PER_CLIENT; r++) {
+                        int n = next.getAndIncrement();
+                        String path = n % 3 == 0
+                                ? "/api/notes?search=meet&size=10"
+                                : "/api/notes/" + noteIds[n % noteIds.length];
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(
+                                    HttpRequest.newBuilder(uri(path)).header("Authorization", "Bearer " + token).GET().build(),
+                                    HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                failures.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            failures.incrementAndGet();
+                        }
+                        latencies[n] = System.nanoTime() - sent;
+                    }
+                    return null;
+                });
+            }
+            for (Future<?> client : running) {
+                client.get();
+            }
+        } finally {
+            clients.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Arrays.sort(latencies);
+        System.out.printf("%n[load] spring.threads.virtual.enabled=%s clients=%d requests=%d failures=%d%n",
+                virtualThreads, CLIENTS, latencies.length, failures.get());
+        System.out.printf("[load] throughput=%.0f req/s p50=%.1fms p99=%.1fms max=%.1fms%n",
+                latencies.length / seconds, percentile(latencies, 50), percentile(latencies, 99),
+                latencies[latencies.length - 1] / 1e6);
+
+        assertThat(failures.get()).isZero();
+    }
+
+    private String signupAndLogin() throws Exception {
+        String email = "load-" + UUID.randomUUID() + "@notes.com";
+        JsonNode auth = objectMapper.readTree(send(null, HttpRequest.newBuilder(uri("/api/auth/signup"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"" + email.substring(0, 20)
+                        + "\",\"email\":\"" + email + "\",\"password\":\"password123\"}"))));
+        return auth.get("token").asText();
+    }
+
+    private String send(String token, HttpRequest.Builder request) throws Exception {
+        request.header("Content-Type", "application/json");
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).as(response.body()).isIn(200, 201);
+        return response.body();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static double percentile(long[] sorted, int percentile) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)] / 1e6;
+    }
+}
@@ -0,0 +1,105 @@
+package com.gideon.notes.repository;
+
+import com.gideon.notes.config.RateLimitProperties;
+import com.gideon.notes.service.RateLimitService;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.Refill;
+import io.github.bucket4j.distributed.AsyncBucketProxy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two RateLimitService instances over one table stand in for two replicas.
+ */
+@JdbcTest
+class JdbcBucketProxyManagerTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private JdbcBucketProxyManager proxyManager;
+
+    @BeforeEach
+    void setUp() {
+        proxyManager = new JdbcBucketProxyManager(jdbcTemplate);
+    }
+
+    @Test
+    void replicas_ShouldShareOneLimitPerClient() {
+        RateLimitService first = replica(RateLimitProperties.SyncMode.BATCHING);
+        RateLimitService second = replica(RateLimitProperties.SyncMode.NONE);
+
+        int allowed = 0;
+        for (int i = 0; i < 10; i++) {
+            RateLimitService replica = i % 2 == 0 ? first : second;
+            if (replica.resolveBucket("client", RateLimitService.RateLimitType.API).tryConsume(1)) {
+                allowed++;
+            }
+        }
+
+        assertThat(allowed).isEqualTo(4);
+        assertThat(second.resolveBucket("other", RateLimitService.RateLimitType.API).tryConsume(1)).isTrue();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM rate_limit_buckets WHERE bucket_key = 'API:client'", Long.class)).isEqualTo(1);
+    }
+
+    @Test
+    void delayingSync_ShouldOverrunByAtMostTheUnsynchronizedTokensPerReplica() {
+        RateLimitService first = replica(RateLimitProperties.SyncMode.DELAYING);
+        RateLimitService second = replica(RateLimitProperties.SyncMode.DELAYING);
+
+        int allowed = 0;
+        for (int i = 0; i < 20; i++) {
+            RateLimitService replica = i % 2 == 0 ? first : second;
+            if (replica.resolveBucket("client", RateLimitService.RateLimitType.API).tryConsume(1)) {
+                allowed++;
+            }
+        }
+
+        assertThat(allowed).isBetween(4, 4 + 2 * 2);
+    }
+
+    @Test
+    void removeExpired_ShouldDropOnlyRefilledBuckets() {
+        replica(RateLimitProperties.SyncMode.NONE).resolveBucket("client", RateLimitService.RateLimitType.API).tryConsume(1);
+        jdbcTemplate.update("INSERT INTO rate_limit_buckets (bucket_key, state, version, expires_at) "
+                + "VALUES ('API:idle', X'00', 0, DATEADD('MINUTE', -1, CURRENT_TIMESTAMP))");
+
+        assertThat(proxyManager.removeExpired()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForList("SELECT bucket_key FROM rate_limit_buckets", String.class))
+                .containsExactly("API:client");
+    }
+
+    @Test
+    void asyncBuckets_ShouldDrawFromTheSameRows() throws Exception {
+        BucketConfiguration configuration = BucketConfiguration.builder()
+                .addLimit(Bandwidth.classic(2, Refill.intervally(2, Duration.ofMinutes(1))))
+                .build();
+        AsyncBucketProxy asyncBucket = proxyManager.asAsync().builder().build("API:async", configuration);
+        Bucket bucket = proxyManager.builder().build("API:async", configuration);
+
+        assertThat(asyncBucket.tryConsume(1).get()).isTrue();
+        assertThat(bucket.tryConsume(1)).isTrue();
+        assertThat(asyncBucket.tryConsume(1).get()).isFalse();
+
+        proxyManager.asAsync().removeProxy("API:async").get();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM rate_limit_buckets", Long.class)).isZero();
+    }
+
+    private RateLimitService replica(RateLimitProperties.SyncMode mode) {
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit(4, 4, Duration.ofMinutes(1));
+        RateLimitProperties properties = new RateLimitProperties(limit, limit, limit, limit, 1_000,
+                Duration.ofMinutes(10), RateLimitProperties.Store.JDBC,
+                new RateLimitProperties.Sync(mode, 2, Duration.ofMinutes(1)));
+        return new RateLimitService(properties, proxyManager);
+    }
+}
@@ -0,0 +1,135 @@
+package com.gideon.notes.repository;
+
+import com.gideon.notes.enums.TagMatchMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs every repository query against the Flyway schema and checks H2's plan for
+ * each statement Hibernate sent: all tables must be reached through an index.
+ */
+@DataJpaTest(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.gideon.notes.repository.RecordingStatementInspector")
+class NotesQueryPlanTest {
+
+    @Autowired
+    private NotesRepository noteRepository;
+
+    @Autowired
+    private NoteTermRepository termRepository;
+
+    @Autowired
+    private NoteTagRepository tagRepository;
+
+    @Autowired
+    private NoteRevisionRepository revisionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        RecordingStatementInspector.STATEMENTS.clear();
+    }
+
+    @Test
+    void noteListingQueries_ShouldUseIndexes() {
+        for (String sortBy : List.of("updatedAt", "createdAt", "title")) {
+            noteRepository.findByUserId(1L, PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, sortBy)));
+        }
+        noteRepository.findByIdAndUserId(1L, 1L);
+        noteRepository.findVersionByIdAndUserId(1L, 1L);
+        noteRepository.existsByIdAndUserId(1L, 1L);
+        noteRepository.findTrashByUserId(1L, PageRequest.of(0, 10));
+        noteRepository.findLastChangeSeqByUserId(1L);
+        noteRepository.findPurgedThroughByUserId(1L);
+        noteRepository.findByUserIdAndIdIn(1L, List.of(1L, 2L, 3L));
+        noteRepository.findSummariesByUserIdAndIdIn(1L, List.of(1L, 2L, 3L));
+        noteRepository.findSummariesByUserIdAndTags(1L, TagFilter.NONE,
+                PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "updatedAt")));
+        noteRepository.findNotesWithUnindexedTags(0L, PageRequest.ofSize(10));
+        noteRepository.findChangesSince(1L, 0L, PageRequest.ofSize(10));
+        noteRepository.streamByUserId(1L).close();
+        noteRepository.streamActiveByUserId(1L).close();
+
+        assertAllStatementsUseIndexes();
+    }
+
+    @Test
+    void tagFilterQueries_ShouldUseIndexes() {
+        PageRequest page = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "updatedAt"));
+        noteRepository.findByUserIdAndTags(1L, new TagFilter(List.of("a", "b"), TagMatchMode.ALL, List.of("c")), page);
+        noteRepository.findByUserIdAndTags(1L, new TagFilter(List.of("a", "b"), TagMatchMode.ANY, List.of()), page);
+        noteRepository.findByUserIdAndTagsAfter(1L, TagFilter.NONE, new NoteCursor(LocalDateTime.now(), 10L), 10);
+        tagRepository.findNoteIdsWithAllTags(1L, List.of("a", "b"), 2);
+        tagRepository.findNoteIdsWithAnyTag(1L, List.of("a", "b"));
+        tagRepository.deleteByNoteIdAndTagIn(1L, List.of("a", "b"));
+
+        assertAllStatementsUseIndexes();
+    }
+
+    @Test
+    void searchIndexQueries_ShouldUseIndexes() {
+        termRepository.findPostings(1L, "meet", "meet" + Character.MAX_VALUE);
+        termRepository.findUnindexedNotes(0L, PageRequest.ofSize(10));
+        termRepository.deleteByNoteId(1L);
+        userRepository.findByEmail("test@notes.com");
+
+        assertAllStatementsUseIndexes();
+    }
+
+    @Test
+    void bulkUpdateQueries_ShouldUseIndexes() {
+        noteRepository.lockStatesByUserIdAndIdIn(1L, List.of(1L, 2L, 3L));
+        noteRepository.lockActiveByUserIdAndIdIn(1L, List.of(1L, 2L, 3L));
+        noteRepository.softDeleteByUserIdAndIdIn(1L, List.of(1L, 2L, 3L), LocalDateTime.now());
+        noteRepository.restoreByUserIdAndIdIn(1L, List.of(1L, 2L, 3L), LocalDateTime.now());
+
+        assertAllStatementsUseIndexes();
+    }
+
+    @Test
+    void revisionQueries_ShouldUseIndexes() {
+        revisionRepository.findSummariesByNoteId(1L, PageRequest.of(0, 10));
+        revisionRepository.findFirstByNoteIdOrderByVersionDesc(1L);
+        revisionRepository.findChain(1L, 5L);
+
+        assertAllStatementsUseIndexes();
+    }
+
+    @Test
+    void trashPurgeQueries_ShouldUseIndexes() {
+        noteRepository.lockTrashBatch(LocalDateTime.now(), LocalDateTime.now().minusDays(1), 0L, 10);
+        termRepository.deleteByNoteIdIn(List.of(1L, 2L, 3L));
+        tagRepository.deleteByNoteIdIn(List.of(1L, 2L, 3L));
+        noteRepository.recordPurge(List.of(1L, 2L, 3L));
+        noteRepository.purgeByIdIn(List.of(1L, 2L, 3L));
+
+        assertAllStatementsUseIndexes();
+    }
+
+    private void assertAllStatementsUseIndexes() {
+        List<String> statements = List.copyOf(RecordingStatementInspector.STATEMENTS);
+        assertThat(statements).isNotEmpty();
+
+        for (String sql : statements) {
+            String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+            assertThat(plan)
+                    .as("Plan for %s", sql)
+                    .doesNotContainIgnoringCase("tableScan");
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.gideon.notes.security;
+
+import com.gideon.notes.config.JwtProperties;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtServiceTest {
+
+    private static final String SECRET = "c2VjcmV0LWtleS1mb3ItdGVzdHMtb25seS0xMjM0NTY3ODkwYWJjZGVmZ2hpams=";
+
+    private JwtService jwtService;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService(
+                new JwtProperties(SECRET, 3_600_000, 86_400_000, true, 100), null, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void verify_ShouldReuseClaimsOfAnAlreadyVerifiedToken() {
+        String token = token(SECRET, 60_000);
+
+        Claims first = jwtService.verify(token);
+        List<Claims> concurrent = IntStream.range(0, 8)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> jwtService.verify(token)))
+                .map(CompletableFuture::join)
+                .toList();
+
+        assertThat(first.getSubject()).isEqualTo("user@notes.com");
+        assertThat(concurrent).allSatisfy(claims -> assertThat(claims).isSameAs(first));
+    }
+
+    @Test
+    void verify_ShouldRejectCachedTokenOnceItExpires() throws InterruptedException {
+        // exp has whole-second precision, so this token lives between one and two seconds
+        String token = token(SECRET, 2_000);
+        assertThat(jwtService.verify(token).getSubject()).isEqualTo("user@notes.com");
+
+        Thread.sleep(2_100);
+
+        assertThatThrownBy(() -> jwtService.verify(token)).isInstanceOf(ExpiredJwtException.class);
+    }
+
+    @Test
+    void verify_ShouldRejectTokensSignedWithAnotherKey() {
+        String forged = token("b3RoZXIta2V5LWZvci10ZXN0cy1vbmx5LTEyMzQ1Njc4OTBhYmNkZWZnaGlqaw==", 60_000);
+
+        assertThatThrownBy(() -> jwtService.verify(forged)).isInstanceOf(SignatureException.class);
+    }
+
+    private static String token(String secret, long ttlMillis) {
+        return Jwts.builder()
+                .claim("id", 1L)
+                .subject("user@notes.com")
+                .expiration(new Date(System.currentTimeMillis() + ttlMillis))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret)), Jwts.SIG.HS256)
+                .compact();
+    }
+}
@@ -0,0 +1,44 @@
+package com.gideon.notes.service;
+
+import com.gideon.notes.config.RateLimitProperties;
+import io.github.bucket4j.Bucket;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitServiceTest {
+
+    private final RateLimitProperties properties = new RateLimitProperties(
+            new RateLimitProperties.Limit(2, 2, Duration.ofMinutes(1)),
+            new RateLimitProperties.Limit(3, 3, Duration.ofMinutes(1)),
+            new RateLimitProperties.Limit(1, 1, Duration.ofMinutes(1)),
+            new RateLimitProperties.Limit(1, 1, Duration.ofMinutes(1)),
+            1_000,
+            Duration.ofMinutes(10),
+            RateLimitProperties.Store.MEMORY,
+            new RateLimitProperties.Sync());
+
+    private final RateLimitService rateLimitService = new RateLimitService(properties);
+
+    @Test
+    void resolveBucket_ShouldApplyConfiguredLimitPerType() {
+        Bucket auth = rateLimitService.resolveBucket("client", RateLimitService.RateLimitType.AUTH);
+        Bucket api = rateLimitService.resolveBucket("client", RateLimitService.RateLimitType.API);
+
+        assertThat(auth.getAvailableTokens()).isEqualTo(2);
+        assertThat(api.getAvailableTokens()).isEqualTo(3);
+    }
+
+    @Test
+    void resolveBucket_ShouldKeepOneBucketPerClientAndType() {
+        Bucket first = rateLimitService.resolveBucket("client", RateLimitService.RateLimitType.API);
+        first.tryConsume(3);
+
+        assertThat(rateLimitService.resolveBucket("client", RateLimitService.RateLimitType.API)).isSameAs(first);
+        assertThat(rateLimitService.resolveBucket("client", RateLimitService.RateLimitType.API).tryConsume(1)).isFalse();
+        assertThat(rateLimitService.resolveBucket("other", RateLimitService.RateLimitType.API).tryConsume(1)).isTrue();
+        assertThat(rateLimitService.resolveBucket("client", RateLimitService.RateLimitType.AUTH).tryConsume(1)).isTrue();
+    }
+}
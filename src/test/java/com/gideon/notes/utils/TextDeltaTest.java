@@ -0,0 +1,36 @@
+package com.gideon.notes.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TextDeltaTest {
+
+    @Test
+    void between_ShouldKeepOnlyTheChangedSpan() {
+        String before = "a".repeat(5_000) + " meeting on Monday " + "b".repeat(5_000);
+        String after = "a".repeat(5_000) + " meeting on Tuesday " + "b".repeat(5_000);
+
+        TextDelta delta = TextDelta.between(before, after);
+
+        assertThat(delta.inserted()).isEqualTo("Tues");
+        assertThat(delta.applyTo(before)).isEqualTo(after);
+    }
+
+    @Test
+    void applyTo_ShouldRebuildInsertionsDeletionsAndRepeats() {
+        String[][] edits = {
+                {"", "new note"},
+                {"new note", ""},
+                {"abc", "abcabc"},
+                {"aaaa", "aa"},
+                {"start middle end", "middle"},
+                {"same", "same"},
+                {"x😀y", "x😃y"}
+        };
+        for (String[] edit : edits) {
+            assertThat(TextDelta.between(edit[0], edit[1]).applyTo(edit[0])).as("%s -> %s", edit[0], edit[1])
+                    .isEqualTo(edit[1]);
+        }
+    }
+}